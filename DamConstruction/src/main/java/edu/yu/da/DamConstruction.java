@@ -1,9 +1,10 @@
 package edu.yu.da;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.TreeSet;
-import java.util.stream.IntStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /** Defines the API for specifying and solving the DamConstruction problem (see
  * the requirements document).
@@ -15,6 +16,71 @@ import java.util.stream.IntStream;
 
 public class DamConstruction {
 
+    /**
+     * How cost() finds the dams already evaluated on either side of the next one
+     * TREE_SET keeps the evaluated dams in a TreeSet<Integer> and asks for the floor and ceiling, which boxes every
+     * dam and makes a tree node for it, but it works for any dam on the river, so it's what cost() uses
+     * FENWICK uses the fact that every dam is in Y, so it only has to mark which indices of Y were evaluated in a
+     * Fenwick tree of ints, which is the same O(n lg n) with no garbage
+     * REVERSE also only works for dams in Y. It goes through the sequence backwards, starting with every dam in it
+     * linked to its neighbors in a list, and unlinking each dam after it is scored. When we reach a dam, the only
+     * dams still in the list are the ones evaluated before it, so its neighbors in the list are the ones we want,
+     * and each dam is O(1) after finding its index. It's the fastest, but each call allocates an int[] as long as the
+     * sequence and three as long as Y, which are garbage as soon as it returns
+     */
+    public enum CostEngine {
+        TREE_SET, FENWICK, REVERSE
+    }
+
+    /**
+     * What evaluating a dam costs for minimumCost(evaluationCost), instead of the length of the stretch of river
+     * it's in
+     * Unlike IntervalDP.IntervalCost, whose ends are indices, this gets the y-positions of the dams on either side
+     */
+    @FunctionalInterface
+    public interface EvaluationCost {
+        /**
+         * @param leftDam the y-position of the dam on the left, or 0 for the start of the river
+         * @param rightDam the y-position of the dam on the right, or riverEnd for the end of the river
+         * @return what it costs to evaluate a dam between them
+         */
+        long cost(int leftDam, int rightDam);
+    }
+
+    /**
+     * How solve() fills in its table
+     * CUBIC tries every dam in an interval as the first one to evaluate, which is O(n^3)
+     * KNUTH uses the fact that the best first dam for an interval is never to the left of the best first dam
+     * once the left end moves right, or to the right of it once the right end moves left (the cost of an interval is
+     * its length, which satisfies the quadrangle inequality), so it only tries dams between those two,
+     * which adds up to O(n^2)
+     * The WAVEFRONT versions do the same work, but every interval of the same length only depends on shorter
+     * intervals, so they fill in each diagonal of the table in parallel, one diagonal at a time
+     */
+    public enum Algorithm {
+        CUBIC(false, false), KNUTH(true, false), WAVEFRONT_CUBIC(false, true), WAVEFRONT_KNUTH(true, true);
+
+        private final boolean knuthBounds;
+        private final boolean wavefront;
+
+        Algorithm(boolean knuthBounds, boolean wavefront) {
+            this.knuthBounds = knuthBounds;
+            this.wavefront = wavefront;
+        }
+    }
+
+    /**
+     * How solve()'s cost table is laid out in memory
+     * ROW_MAJOR stores each row of the table one after another. The inner loop reads along a row, which is in order,
+     * but also down a column, which jumps a whole row every step, so on a big river almost every other read misses
+     * the cache.
+     * DUAL also keeps a copy of the table with each column stored one after another, so both reads are in order,
+     * at the price of twice the memory. It helps the most with CUBIC, whose inner loop is long.
+     */
+    public enum TableLayout {
+        ROW_MAJOR, DUAL
+    }
+
     /*
      * @TODO Write tests for solve()
      * @TODO Write Big-O measurement test for solve() and cost()
@@ -25,6 +91,14 @@ public class DamConstruction {
 
     final int riverEnd;
     final int[] damLocations;
+    // The tables are a whole triangle each, which on a big river is gigabytes, so solve() never keeps the cost table
+    // The minimum cost, once anything has solved it, or -1 until then
+    private volatile long solvedCost = -1;
+    // which dam is evaluated first in each interval, kept whenever a solve built it anyway (Knuth's bounds need it,
+    // and so does optimalEvaluationSequence()), so that the sequence is read out of it without solving again
+    private volatile TriangularTable splitTable;
+    // both tables, kept only by withDam() and withoutDam(), which need them to only redo the intervals that changed
+    private volatile SolvedTables solvedTables;
 
     /** Constructor
      *
@@ -45,34 +119,76 @@ public class DamConstruction {
         }
         cleanY(Y, riverEnd);
         this.riverEnd = riverEnd;
-        damLocations = new int[Y.length + 2];
+        damLocations = withEnds(Y, riverEnd);
+    } // constructor
+
+    /**
+     * Makes a DamConstruction like the constructor, but without checking the dams at all, for a client who already
+     * knows that they are valid, and doesn't want to pay for going through them again
+     * If they aren't sorted, distinct, and strictly between 0 and riverEnd, the answers will be wrong
+     * @param Y y-positions specifying dam locations, with the same requirements as the constructor's
+     * @param riverEnd the y-position of the river's end
+     * @return a DamConstruction for those dams
+     */
+    public static DamConstruction trusted(final int[] Y, final int riverEnd) {
+        if (Y == null) {
+            throw new IllegalArgumentException("Dam Y is null");
+        }
+        return new DamConstruction(riverEnd, withEnds(Y, riverEnd));
+    }
+
+    /**
+     * @param dams the dams given by the client, which it still owns
+     * @param end of the river
+     * @return a copy of the dams, with 0 added at the start and end added at the end
+     */
+    private static int[] withEnds(int[] dams, int end) {
+        int[] damLocations = new int[dams.length + 2];
         damLocations[0] = 0;
-        damLocations[Y.length + 1] = riverEnd;
-        System.arraycopy(Y, 0, damLocations, 1, Y.length);
+        damLocations[dams.length + 1] = end;
+        System.arraycopy(dams, 0, damLocations, 1, dams.length);
         // index 0 corresponds to dam 0, already built
         // indices 1...damLoc.length correspond to damLoc[i - 1]
         // index damLoc.length + 1 corresponds to dam riverEnd
-    } // constructor
+        return damLocations;
+    }
+
+    /**
+     * For withDam() and withoutDam(), whose dams are already known to be valid, and who fill in the tables themselves
+     * The arguments are in the other order so that it doesn't clash with the public constructor
+     * @param riverEnd the y-position of the river's end
+     * @param damLocations including 0 and riverEnd, which this now owns
+     */
+    private DamConstruction(final int riverEnd, final int[] damLocations) {
+        this.riverEnd = riverEnd;
+        this.damLocations = damLocations;
+    }
 
     /**
      * Makes sure that the dams given are all valid and in different positions, throws IAE otherwise
+     * Since the dams have to be sorted anyway, a duplicate has to be right after its twin, so one pass that checks
+     * each dam against the one before it is enough, with no set of the dams seen so far
+     * The first dam has to be positive, and then every dam is bigger than the last, so only the last dam has to be
+     * checked against the end
      * @param dams that were given as input
      * @param end of the river, with the dam already built
      */
     private void cleanY(int[] dams, int end) {
         cleanArray(dams, "Y");
-        Set<Integer> damsSeen = new HashSet<>(dams.length); // so we can make sure there are no duplicate dams
-        for (int dam : dams) {
-            if (dam <= 0) {
-                throw new IllegalArgumentException("Dam " + dam + " must have a positive location");
-            }
-            if (dam >= end) {
-                throw new IllegalArgumentException("Dam " + dam + " must be before the river's end at " + end);
-            }
-            if (damsSeen.contains(dam)) {
-                throw new IllegalArgumentException("Dam " + dam + " is in the input twice");
+        if (dams[0] <= 0) {
+            throw new IllegalArgumentException("Dam " + dams[0] + " must have a positive location");
+        }
+        for (int i = 1; i < dams.length; i++) {
+            if (dams[i] <= dams[i - 1]) {
+                if (dams[i] == dams[i - 1]) {
+                    throw new IllegalArgumentException("Dam " + dams[i] + " is in the input twice");
+                }
+                throw new IllegalArgumentException("Dam " + dams[i] + " comes after dam " + dams[i - 1]
+                        + ", but the dams must be sorted ascending");
             }
-            damsSeen.add(dam);
+        }
+        if (dams[dams.length - 1] >= end) {
+            throw new IllegalArgumentException("Dam " + dams[dams.length - 1] + " must be before the river's end at " + end);
         }
     }
 
@@ -92,32 +208,454 @@ public class DamConstruction {
      * @return the minimum possible evaluation cost.
      */
     public int solve() {
-        int[][] costTable = new int[damLocations.length][damLocations.length];
+        return solve(Algorithm.CUBIC);
+    }
+
+    /** Solves the DamConstruction problem like solve(), but lets the client choose how
+     *
+     * @param algorithm used to fill in the dynamic programming table
+     * @return the minimum possible evaluation cost, which doesn't depend on the algorithm
+     * @throws ArithmeticException if the minimum cost is too big for an int, in which case use minimumCost()
+     */
+    public int solve(final Algorithm algorithm) {
+        long cost = minimumCost(algorithm);
+        if (cost > Integer.MAX_VALUE) {
+            throw new ArithmeticException("The minimum cost " + cost + " is too big for an int, use minimumCost()");
+        }
+        return (int) cost;
+    }
+
+    /** Solves the DamConstruction problem like solve(algorithm), but returns the cost as a long, since on a
+     * long river with many dams it can be more than an int can hold
+     * The KNUTH algorithms need the table of which dam is evaluated first in each interval anyway, so it is kept,
+     * and optimalEvaluationSequence() reads the sequence out of it without solving again. CUBIC doesn't build that
+     * table, so a client who wants the sequence from a CUBIC solve should call optimalEvaluationSequence(algorithm).
+     *
+     * @param algorithm used to fill in the dynamic programming table
+     * @return the minimum possible evaluation cost, which doesn't depend on the algorithm
+     */
+    public long minimumCost(final Algorithm algorithm) {
+        return minimumCost(algorithm, TableLayout.ROW_MAJOR);
+    }
+
+    /** Solves the DamConstruction problem like minimumCost(algorithm), but also lets the client choose how the
+     * table is laid out in memory
+     *
+     * @param algorithm used to fill in the dynamic programming table
+     * @param layout of the cost table
+     * @return the minimum possible evaluation cost, which doesn't depend on the algorithm or the layout
+     */
+    public long minimumCost(final Algorithm algorithm, final TableLayout layout) {
+        if (algorithm == null) {
+            throw new IllegalArgumentException("algorithm is null");
+        }
+        if (layout == null) {
+            throw new IllegalArgumentException("layout is null");
+        }
+        return solve(algorithm.knuthBounds, algorithm.wavefront, layout == TableLayout.DUAL);
+    }
+
+    /**
+     * The dynamic programming solution, which keeps the answer, and the split table if it built one, but lets the
+     * cost table go
+     * @param knuthBounds true to use Knuth's bounds, false to check every dam
+     * @param wavefront true to fill in each diagonal in parallel, false to do it all on this thread
+     * @param dual true to keep a column-major copy of the cost table too
+     * @return the minimum possible evaluation cost
+     */
+    private long solve(boolean knuthBounds, boolean wavefront, boolean dual) {
+        SolvedTables tables = solveTables(knuthBounds, wavefront, dual, false);
+        if (tables.splitTable != null) {
+            keepSplits(tables.splitTable);
+        }
+        return tables.costTable.get(0, damLocations.length - 1);
+    }
+
+    /**
+     * Keeps a split table for optimalEvaluationSequence(), unless withDam() or withoutDam() already kept one
+     * @param splits a split table that was just filled in
+     */
+    private void keepSplits(TriangularTable splits) {
+        if (solvedTables == null) {
+            splitTable = splits;
+        }
+    }
+
+    /**
+     * Fills in the tables from scratch
+     * Without Knuth's bounds, this is the original O(n^3) triple loop
+     * With them, it only checks the dams between the dams evaluated first in the two intervals that are one
+     * shorter. For a fixed offset, those ranges overlap only at their ends, so each offset is O(n), and the whole
+     * thing is O(n^2)
+     * The split table is only made if Knuth's bounds need it, or the caller does
+     * @param knuthBounds true to use Knuth's bounds, false to check every dam
+     * @param wavefront true to fill in each diagonal in parallel, false to do it all on this thread
+     * @param dual true to keep a column-major copy of the cost table too
+     * @param needSplits true if the caller wants to know which dam was evaluated first in each interval
+     * @return the tables, whose split table is null if neither Knuth's bounds nor the caller needed it
+     */
+    private SolvedTables solveTables(boolean knuthBounds, boolean wavefront, boolean dual, boolean needSplits) {
+        TriangularTable costTable = TriangularTable.forCosts(damLocations, dual);
         // this is used for my dynamic programming
         // the first index is the left end of the river, the second index the right, where l < r
         // uses the same indices as damLocations
-        // I don't need to fill in cases of 0 or 1, because I would be filling them in as 0 anyway, which is
+        // I don't need to fill in cases of 1, because I would be filling them in as 0 anyway, which is
             // already the default value
+        TriangularTable splits = knuthBounds || needSplits? TriangularTable.ofInts(damLocations.length) : null;
+        // every interval has changed, since there was nothing there before
+        fillTables(costTable, splits, knuthBounds, wavefront, damLocations.length - 1, 0);
+        solvedCost = costTable.get(0, damLocations.length - 1);
+        return new SolvedTables(costTable, splits);
+    }
+
+    /**
+     * Fills in every interval (l, r) of the tables with l <= lastLeftEnd and r >= firstRightEnd, from the shortest
+     * to the longest, and assumes that all the other intervals are already filled in
+     * For a whole solve, that's every interval. When a dam is added or removed, it's only the intervals that
+     * stretch over it, since the others have exactly the same dams as before.
+     * @param costTable to fill in
+     * @param splitTable to fill in, or null if nobody needs it, which it can't be with Knuth's bounds
+     * @param knuthBounds true to use Knuth's bounds, false to check every dam
+     * @param wavefront true to fill in each diagonal in parallel, false to do it all on this thread
+     * @param lastLeftEnd the rightmost left end of an interval that needs filling in
+     * @param firstRightEnd the leftmost right end of an interval that needs filling in
+     */
+    private void fillTables(TriangularTable costTable, TriangularTable splitTable, boolean knuthBounds,
+                            boolean wavefront, int lastLeftEnd, int firstRightEnd) {
+        // splitTable(l, r) is the index of the dam evaluated first between l and r
+        if (splitTable != null) {
+            IntervalDP.setEmptySplits(splitTable, damLocations.length);
+        }
         // now we fill in for offsets starting at 2 and increasing to length
         for (int offset = 2; offset < damLocations.length; offset++) {
-            // we fill in (i, i + offset) for each i  < length - offset
-            for (int leftEnd = 0; leftEnd < damLocations.length - offset; leftEnd++) {
-                int leftDam = leftEnd; // used so the lambda doesn't throw a fit
-                int rightDam = leftEnd + offset;
-                // the triple loop. We check all dams between leftEnd and leftEnd + offset, seeing which is cheapest
-                costTable[leftEnd][leftEnd + offset] = IntStream.range(leftEnd + 1, leftEnd + offset)
-                        .map(i->costTable[leftDam][i] + costTable[i][rightDam])
-                        .min().getAsInt()
-                        + damLocations[rightDam] - damLocations[leftDam]; // will not have a null point, because this will work every time
-                // I could have made this parallel, but it will complicate the writeup
+            // we fill in (i, i + offset) for each i  < length - offset, as long as it's one that changed
+            int firstLeftEnd = Math.max(0, firstRightEnd - offset);
+            int endLeftEnd = Math.min(lastLeftEnd + 1, damLocations.length - offset);
+            if (firstLeftEnd >= endLeftEnd) {
+                continue;
+            }
+            DiagonalTask diagonal = new DiagonalTask(costTable, splitTable, knuthBounds,
+                    offset, firstLeftEnd, endLeftEnd);
+            if (wavefront) {
+                // invoke() doesn't return until the whole diagonal is done, so the next one sees all of it
+                ForkJoinPool.commonPool().invoke(diagonal);
+            } else {
+                diagonal.fillIntervals();
             }
         }
 
         // for a length 5 array, last index is 4
         // with offset of 3, last index we care about is (1, 4)
         // which is length - offset - 1
+    }
+
+    /** Returns the minimum possible evaluation cost, like minimumCost(algorithm)
+     * If it's already been solved, by solve() or optimalEvaluationSequence(), or this came from withDam() or
+     * withoutDam(), this just returns the answer, otherwise it solves it with Knuth's bounds
+     *
+     * @return the minimum possible evaluation cost
+     */
+    public long minimumCost() {
+        long cost = solvedCost;
+        return cost >= 0? cost : solve(true, false, false);
+    }
+
+    /** Returns the minimum possible evaluation cost like minimumCost(algorithm), but where evaluating a dam doesn't
+     * cost the length of the stretch of river it's in, but whatever evaluationCost says, such as a length weighted by
+     * the terrain
+     * This is solved by IntervalDP, which checks whether Knuth's bounds work for the cost, and uses them if they do
+     *
+     * @param evaluationCost the cost of evaluating a dam between the dams at the two y-positions it's given
+     * @return the minimum possible evaluation cost
+     */
+    public long minimumCost(final EvaluationCost evaluationCost) {
+        if (evaluationCost == null) {
+            throw new IllegalArgumentException("evaluationCost is null");
+        }
+        IntervalDP intervalDP = new IntervalDP(damLocations.length,
+                (leftEnd, rightEnd) -> evaluationCost.cost(damLocations[leftEnd], damLocations[rightEnd]),
+                IntervalDP.Optimization.AUTO);
+        return intervalDP.solve();
+    }
 
-        return costTable[0][damLocations.length - 1];
+    /** Returns the minimum possible evaluation cost like minimumCost(), but checks a cache first, for a client who
+     * solves the same rivers over and over, even in different runs
+     * If the river isn't in the cache, it is solved with Knuth's bounds, and the answer is stored, along with the
+     * optimal evaluation sequence if the cache stores them
+     *
+     * @param cache of solutions, which is looked up by the dams and river end
+     * @return the minimum possible evaluation cost
+     * @throws IOException if the cache can't be read or written
+     */
+    public long minimumCost(final SolutionCache cache) throws IOException {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache is null");
+        }
+        long cost = cache.lookupCost(damLocations);
+        if (cost < 0) {
+            // the sequence first, since solving for it also finds the cost, and then minimumCost() doesn't solve again
+            int[] evaluationSequence = cache.storesSequences()? optimalEvaluationSequence() : null;
+            cost = minimumCost();
+            cache.store(damLocations, cost, evaluationSequence);
+        }
+        return cost;
+    }
+
+    /** Returns an optimal evaluation sequence like optimalEvaluationSequence(), but checks a cache first, like
+     * minimumCost(cache)
+     * If the cache doesn't store sequences, the sequence is always read out of the split table, but the cost is
+     * still stored
+     *
+     * @param cache of solutions, which is looked up by the dams and river end
+     * @return the elements of Y, in an order that costs the minimum
+     * @throws IOException if the cache can't be read or written
+     */
+    public int[] optimalEvaluationSequence(final SolutionCache cache) throws IOException {
+        if (cache == null) {
+            throw new IllegalArgumentException("cache is null");
+        }
+        int[] evaluationSequence = cache.lookupSequence(damLocations);
+        if (evaluationSequence == null) {
+            evaluationSequence = optimalEvaluationSequence();
+            cache.store(damLocations, minimumCost(), evaluationSequence);
+        }
+        return evaluationSequence;
+    }
+
+    /** Returns a DamConstruction that also has a dam at y, whose tables are already filled in
+     * Only the intervals that stretch over the new dam are recalculated, the rest are copied from this one.
+     * The first time, this one's tables are filled in and kept, so a planner pays for that once, then tries out
+     * lots of dams. Both the tables kept here and the new DamConstruction's are a whole triangle each.
+     * This DamConstruction isn't changed.
+     *
+     * @param y where to put the new dam, which must be on the river, and not where a dam already is
+     * @return a new DamConstruction with the dam added
+     */
+    public DamConstruction withDam(final int y) {
+        if (y <= 0 || y >= riverEnd) {
+            throw new IllegalArgumentException("Dam " + y + " must be between 0 and the river's end at " + riverEnd);
+        }
+        int newDam = Arrays.binarySearch(damLocations, y);
+        if (newDam >= 0) {
+            throw new IllegalArgumentException("Dam " + y + " is already there");
+        }
+        newDam = -newDam - 1; // where it goes
+        int[] newLocations = new int[damLocations.length + 1];
+        System.arraycopy(damLocations, 0, newLocations, 0, newDam);
+        newLocations[newDam] = y;
+        System.arraycopy(damLocations, newDam, newLocations, newDam + 1, damLocations.length - newDam);
+        // only intervals with l <= newDam <= r changed, the rest are the same as the one that was one to the left
+        return derive(newLocations, newDam, newDam, newDam);
+    }
+
+    /** Returns a DamConstruction without the dam at y, whose tables are already filled in
+     * Like withDam(), only the intervals that stretched over the dam are recalculated, and this one isn't changed.
+     *
+     * @param y where the dam to remove is, which must be one of the dams, and not the only one
+     * @return a new DamConstruction with the dam removed
+     */
+    public DamConstruction withoutDam(final int y) {
+        int oldDam = Arrays.binarySearch(damLocations, 1, damLocations.length - 1, y);
+        if (oldDam < 0) {
+            throw new IllegalArgumentException("Dam " + y + " isn't there to remove");
+        }
+        if (damLocations.length == 3) {
+            throw new IllegalArgumentException("Dam " + y + " is the only dam, and there must be at least one");
+        }
+        int[] newLocations = new int[damLocations.length - 1];
+        System.arraycopy(damLocations, 0, newLocations, 0, oldDam);
+        System.arraycopy(damLocations, oldDam + 1, newLocations, oldDam, damLocations.length - oldDam - 1);
+        // now the intervals with l < oldDam <= r stretch over where it was
+        return derive(newLocations, oldDam, oldDam - 1, oldDam);
+    }
+
+    /**
+     * Makes the DamConstruction for withDam() and withoutDam(), copying over every interval that didn't change
+     * Every index from shiftedFrom on is one off from the same dam here, one more if a dam was added,
+     * and one less if one was removed
+     * @param newLocations of the new DamConstruction's dams
+     * @param shiftedFrom the first index in newLocations whose dam had a different index here
+     * @param lastLeftEnd the rightmost left end of an interval that changed
+     * @param firstRightEnd the leftmost right end of an interval that changed
+     * @return the new DamConstruction, already solved
+     */
+    private DamConstruction derive(int[] newLocations, int shiftedFrom, int lastLeftEnd, int firstRightEnd) {
+        SolvedTables oldTables = tables();
+        // how to get from a new index to the old one, and back
+        int shift = damLocations.length - newLocations.length; // -1 for an added dam, 1 for a removed one
+        DamConstruction derived = new DamConstruction(riverEnd, newLocations);
+        TriangularTable costTable = TriangularTable.forCosts(newLocations);
+        TriangularTable splits = TriangularTable.ofInts(newLocations.length);
+        for (int leftEnd = 0; leftEnd < newLocations.length - 1; leftEnd++) {
+            int oldLeftEnd = leftEnd < shiftedFrom? leftEnd : leftEnd + shift;
+            // if the left end is past where it changed, none of its intervals changed, otherwise, only the ones
+            // whose right end is before it
+            int lastRightEnd = leftEnd > lastLeftEnd? newLocations.length - 1 : firstRightEnd - 1;
+            for (int rightEnd = leftEnd + 1; rightEnd <= lastRightEnd; rightEnd++) {
+                int oldRightEnd = rightEnd < shiftedFrom? rightEnd : rightEnd + shift;
+                costTable.set(leftEnd, rightEnd, oldTables.costTable.get(oldLeftEnd, oldRightEnd));
+                int oldSplit = (int) oldTables.splitTable.get(oldLeftEnd, oldRightEnd);
+                splits.set(leftEnd, rightEnd, oldSplit < shiftedFrom? oldSplit : oldSplit - shift);
+            }
+        }
+        // every split we copied is the leftmost best one, whichever algorithm found it, so Knuth's bounds hold
+        derived.fillTables(costTable, splits, true, false, lastLeftEnd, firstRightEnd);
+        derived.solvedTables = new SolvedTables(costTable, splits);
+        derived.solvedCost = costTable.get(0, newLocations.length - 1);
+        return derived;
+    }
+
+    /**
+     * @return both tables, for withDam() and withoutDam(), solving with Knuth's bounds and keeping them
+     * the first time
+     */
+    private SolvedTables tables() {
+        SolvedTables tables = solvedTables;
+        if (tables == null) {
+            tables = solveTables(true, false, false, true);
+            solvedTables = tables;
+            splitTable = null; // the one in the tables is just as good
+        }
+        return tables;
+    }
+
+    /**
+     * @return the split table, for optimalEvaluationSequence(), solving with Knuth's bounds and keeping it, but not
+     * the cost table, the first time
+     */
+    private TriangularTable splits() {
+        SolvedTables tables = solvedTables;
+        if (tables != null) {
+            return tables.splitTable;
+        }
+        TriangularTable splits = splitTable;
+        if (splits == null) {
+            splits = solveTables(true, false, false, true).splitTable;
+            keepSplits(splits);
+        }
+        return splits;
+    }
+
+    /** Returns an order in which to evaluate the dams that achieves the minimum cost, which cost() will agree with
+     * The order is read out of the table of which dam was evaluated first in each interval, which is kept from
+     * the last solve with Knuth's bounds, so this is O(n). If there wasn't one, it solves with Knuth's bounds first,
+     * which is O(n^2), and keeps the table for next time.
+     * A DamConstruction from withDam() or withoutDam() already has the table.
+     *
+     * @return the elements of Y, in an order that costs as much as solve() returned
+     */
+    public int[] optimalEvaluationSequence() {
+        return evaluationSequence(splits());
+    }
+
+    /** Solves the DamConstruction problem with the algorithm given, and returns an order in which to evaluate the
+     * dams that achieves the minimum cost, read out of the table that solve filled in
+     * Afterwards, minimumCost() and optimalEvaluationSequence() just look up the answers, so this is the way to
+     * get both the cost and the sequence from one CUBIC solve
+     *
+     * @param algorithm used to fill in the dynamic programming table
+     * @return the elements of Y, in an order that costs the minimum
+     */
+    public int[] optimalEvaluationSequence(final Algorithm algorithm) {
+        if (algorithm == null) {
+            throw new IllegalArgumentException("algorithm is null");
+        }
+        TriangularTable splits = solveTables(algorithm.knuthBounds, algorithm.wavefront, false, true).splitTable;
+        keepSplits(splits);
+        return evaluationSequence(splits);
+    }
+
+    /**
+     * @param splits the table of which dam is evaluated first in each interval
+     * @return the elements of Y, in the order that the table says to evaluate them
+     */
+    private int[] evaluationSequence(TriangularTable splits) {
+        int[] evaluationSequence = new int[damLocations.length - 2];
+        int evaluated = 0;
+        // a preorder traversal of the intervals, where each interval's first dam splits it into two more
+        // with an explicit stack of (left, right) pairs, because a lopsided river could recurse n deep
+        int[] stack = new int[2 * damLocations.length];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        stack[stackSize++] = damLocations.length - 1;
+        while (stackSize > 0) {
+            int rightEnd = stack[--stackSize];
+            int leftEnd = stack[--stackSize];
+            if (rightEnd - leftEnd < 2) {
+                continue; // no dams inside this interval
+            }
+            int split = (int) splits.get(leftEnd, rightEnd);
+            evaluationSequence[evaluated++] = damLocations[split];
+            // the right half goes on first, so the left half comes off first, which isn't necessary, but is tidy
+            stack[stackSize++] = split;
+            stack[stackSize++] = rightEnd;
+            stack[stackSize++] = leftEnd;
+            stack[stackSize++] = split;
+        }
+        return evaluationSequence;
+    }
+
+    /**
+     * The cost table and split table from one solve, kept together so that nobody sees one without the other
+     */
+    private static final class SolvedTables {
+        private final TriangularTable costTable;
+        private final TriangularTable splitTable;
+
+        private SolvedTables(TriangularTable costTable, TriangularTable splitTable) {
+            this.costTable = costTable;
+            this.splitTable = splitTable;
+        }
+    }
+
+    /**
+     * Fills in a stretch of one diagonal of the table, all of whose intervals have the same offset
+     * When run in a ForkJoinPool, it keeps splitting the stretch in half until each piece is worth a thread,
+     * and idle threads steal the halves
+     */
+    private class DiagonalTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        // about how many split points a task should check, so that forking doesn't cost more than it saves
+        private static final int SPLITS_PER_TASK = 1 << 14;
+        private final TriangularTable costTable;
+        private final TriangularTable splitTable;
+        private final boolean knuthBounds;
+        private final int offset;
+        private final int firstLeftEnd;
+        private final int lastLeftEnd; // exclusive
+
+        private DiagonalTask(TriangularTable costTable, TriangularTable splitTable, boolean knuthBounds, int offset,
+                             int firstLeftEnd, int lastLeftEnd) {
+            this.costTable = costTable;
+            this.splitTable = splitTable;
+            this.knuthBounds = knuthBounds;
+            this.offset = offset;
+            this.firstLeftEnd = firstLeftEnd;
+            this.lastLeftEnd = lastLeftEnd;
+        }
+
+        @Override
+        protected void compute() {
+            // with Knuth's bounds, an interval checks only a couple of dams on average, not the whole offset
+            long splitsPerInterval = knuthBounds? 2 : offset - 1;
+            if (lastLeftEnd - firstLeftEnd <= 1 || (lastLeftEnd - firstLeftEnd) * splitsPerInterval <= SPLITS_PER_TASK) {
+                fillIntervals();
+                return;
+            }
+            int middleLeftEnd = (firstLeftEnd + lastLeftEnd) >>> 1;
+            invokeAll(new DiagonalTask(costTable, splitTable, knuthBounds, offset, firstLeftEnd, middleLeftEnd),
+                    new DiagonalTask(costTable, splitTable, knuthBounds, offset, middleLeftEnd, lastLeftEnd));
+        }
+
+        /**
+         * Fills in this stretch of the diagonal on the current thread, with IntervalDP's loop, where the cost of an
+         * interval is the length of the river between its dams
+         */
+        private void fillIntervals() {
+            IntervalDP.fillDiagonal(costTable, splitTable, knuthBounds,
+                    (leftEnd, rightEnd) -> damLocations[rightEnd] - damLocations[leftEnd], offset,
+                    firstLeftEnd, lastLeftEnd);
+        }
     }
 
     /** Returns the cost of applying the dam evaluation decisions in the
@@ -140,13 +678,98 @@ public class DamConstruction {
      * dynamic programming algorithm used in solve().  This method is part of the
      * API to stimulate your thinking as you work through this assignment and to
      * exercise your software engineering muscles.
+     * @note the cost is added up as a long, but this returns an int, so a cost too big for an int wraps around,
+     * like it always has. totalCost() returns the whole thing.
      */
     public int cost(final int[] evaluationSequence) {
+        return (int) totalCost(evaluationSequence);
+    }
+
+    /** Returns the cost of evaluating the dams in the given order, like cost(evaluationSequence), but as a long,
+     * since on a long river with many dams it can be more than an int can hold
+     *
+     * @param evaluationSequence elements of Y, in the order they are evaluated
+     * @return the cost of dam evaluation for the sequence
+     */
+    public long totalCost(final int[] evaluationSequence) {
+        return totalCost(evaluationSequence, CostEngine.TREE_SET);
+    }
+
+    /** Returns the cost of evaluating the dams in the given order, like totalCost(evaluationSequence), but lets the
+     * client choose how
+     *
+     * @param evaluationSequence elements of Y, in the order they are evaluated
+     * @param engine used to find the dams already evaluated on either side of each one
+     * @return the cost of dam evaluation for the sequence, which doesn't depend on the engine
+     * @throws IllegalArgumentException if any engine but TREE_SET is given a dam that isn't in Y
+     */
+    public long totalCost(final int[] evaluationSequence, final CostEngine engine) {
         cleanArray(evaluationSequence, "evaluationSequence");
+        if (engine == null) {
+            throw new IllegalArgumentException("engine is null");
+        }
+        switch (engine) {
+            case FENWICK:
+                return fenwickCost(evaluationSequence, new FenwickTree(damLocations.length));
+            case REVERSE:
+                return reverseCost(evaluationSequence);
+            default:
+                return treeSetCost(evaluationSequence);
+        }
+    }
+
+    /** Returns the cost of each of many evaluation sequences, like totalCost(evaluationSequence), spread over the
+     * cores of the common ForkJoinPool
+     *
+     * @param evaluationSequences each of which has the same requirements as cost()'s parameter
+     * @return an array whose ith element is the cost of evaluationSequences[i]
+     * @throws IllegalArgumentException if any sequence is null or empty
+     */
+    public long[] totalCosts(final int[][] evaluationSequences) {
+        return totalCosts(evaluationSequences, CostEngine.TREE_SET);
+    }
+
+    /** Returns the cost of each of many evaluation sequences, like totalCosts(evaluationSequences), but lets the
+     * client choose how each one is scored
+     * With FENWICK, each task makes one Fenwick tree and clears it between sequences, instead of every sequence
+     * making its own
+     *
+     * @param evaluationSequences each of which has the same requirements as cost()'s parameter
+     * @param engine used to score each sequence
+     * @return an array whose ith element is the cost of evaluationSequences[i], which doesn't depend on the engine
+     * @throws IllegalArgumentException if any sequence is null or empty, or any engine but TREE_SET is given a dam
+     * that isn't in Y
+     */
+    public long[] totalCosts(final int[][] evaluationSequences, final CostEngine engine) {
+        if (evaluationSequences == null) {
+            throw new IllegalArgumentException("evaluationSequences is null");
+        }
+        if (engine == null) {
+            throw new IllegalArgumentException("engine is null");
+        }
+        // damsBefore[i] is how many dams are in the sequences before i, so a task can split its sequences
+        // into halves with about as many dams each without counting them again
+        long[] damsBefore = new long[evaluationSequences.length + 1];
+        for (int i = 0; i < evaluationSequences.length; i++) {
+            cleanArray(evaluationSequences[i], "evaluationSequence " + i);
+            damsBefore[i + 1] = damsBefore[i] + evaluationSequences[i].length;
+        }
+        long[] costs = new long[evaluationSequences.length];
+        ForkJoinPool.commonPool().invoke(new ScoringTask(evaluationSequences, damsBefore, costs, engine,
+                0, evaluationSequences.length));
+        return costs;
+    }
+
+    /**
+     * The original cost(), with a TreeSet of the dams evaluated so far
+     * @param evaluationSequence elements of Y, in the order they are evaluated
+     * @return the cost of dam evaluation for the sequence
+     */
+    private long treeSetCost(int[] evaluationSequence) {
         // to solve this, I will keep a tree set of all the dams examined so far (starting with 0 and end)
         // when I examine a dam, I will find its floor and ceiling and find the difference between them, adding it
         // efficiency is O(nlgn)
-        int cost = 0;
+        long cost = 0;
         TreeSet<Integer> damsExamined = new TreeSet<>();
         damsExamined.add(0);
         damsExamined.add(riverEnd);
@@ -159,4 +782,158 @@ public class DamConstruction {
 
         return cost;
     }
+
+    /**
+     * Like treeSetCost(), but since every dam is in damLocations, I mark dams by their index there in a Fenwick tree
+     * The dam evaluated before on the left is the last mark up to its index, and the one on the right is the mark
+     * after that, so each dam is a binary search and a few O(lg n) walks, with no boxing
+     * @param evaluationSequence elements of Y, in the order they are evaluated
+     * @param damsExamined an empty Fenwick tree with a position for every dam in damLocations
+     * @return the cost of dam evaluation for the sequence
+     */
+    private long fenwickCost(int[] evaluationSequence, FenwickTree damsExamined) {
+        long cost = 0;
+        damsExamined.mark(0);
+        damsExamined.mark(damLocations.length - 1);
+
+        for (int damLocation : evaluationSequence) {
+            int index = indexOf(damLocation);
+            if (index < 0) {
+                throw new IllegalArgumentException("Dam " + damLocation + " is not one of the dams in Y");
+            }
+            if (!damsExamined.mark(index)) {
+                continue; // the TreeSet would find it as its own floor and ceiling, and add nothing
+            }
+            // the dam itself is now marked, so the one on the left is one mark before it, and the right one after
+            int rank = damsExamined.countThrough(index);
+            cost += damLocations[damsExamined.select(rank + 1)] - damLocations[damsExamined.select(rank - 1)];
+        }
+
+        return cost;
+    }
+
+    /**
+     * Finds the index of a dam in damLocations, for the cost() engines that only work with dams in Y
+     * It's a binary search, so it doesn't need a table of every position on the river kept around
+     * @param dam the position of a dam
+     * @return its index in damLocations, or a negative number if it isn't one of the dams in Y
+     */
+    private int indexOf(int dam) {
+        // 0 and riverEnd are left out, since they aren't dams in Y
+        return Arrays.binarySearch(damLocations, 1, damLocations.length - 1, dam);
+    }
+
+    /**
+     * Like fenwickCost(), but backwards: see CostEngine.REVERSE
+     * This is where union-find would usually come in, to find the closest dam still there on each side, but since
+     * every dam's neighbors are known when it is unlinked, a doubly linked list of indices does it in exactly O(1)
+     * @param evaluationSequence elements of Y, in the order they are evaluated
+     * @return the cost of dam evaluation for the sequence
+     */
+    private long reverseCost(int[] evaluationSequence) {
+        // first, find each dam's index, and which entry evaluates it first, since any later entries of the same dam
+        // cost nothing
+        int[] indices = new int[evaluationSequence.length];
+        int[] firstEvaluated = new int[damLocations.length];
+        Arrays.fill(firstEvaluated, -1);
+        for (int i = 0; i < evaluationSequence.length; i++) {
+            int index = indexOf(evaluationSequence[i]);
+            if (index < 0) {
+                throw new IllegalArgumentException("Dam " + evaluationSequence[i] + " is not one of the dams in Y");
+            }
+            indices[i] = index;
+            if (firstEvaluated[index] == -1) {
+                firstEvaluated[index] = i;
+            }
+        }
+        // then link up every dam that ever gets evaluated, and the two at the ends
+        int[] previous = new int[damLocations.length];
+        int[] next = new int[damLocations.length];
+        int last = 0;
+        for (int index = 1; index < damLocations.length; index++) {
+            if (firstEvaluated[index] != -1 || index == damLocations.length - 1) {
+                previous[index] = last;
+                next[last] = index;
+                last = index;
+            }
+        }
+
+        long cost = 0;
+        for (int i = evaluationSequence.length - 1; i >= 0; i--) {
+            int index = indices[i];
+            if (firstEvaluated[index] != i) {
+                continue; // it was already there by then
+            }
+            cost += damLocations[next[index]] - damLocations[previous[index]];
+            next[previous[index]] = next[index];
+            previous[next[index]] = previous[index];
+        }
+
+        return cost;
+    }
+
+    /**
+     * Scores a range of evaluation sequences for totalCosts(), splitting the range in two with about as many dams
+     * on each side until each piece has few enough dams to be worth a thread
+     */
+    private class ScoringTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        // about how many dams a task should score, so that forking doesn't cost more than it saves
+        private static final int DAMS_PER_TASK = 1 << 14;
+        private final int[][] evaluationSequences;
+        private final long[] damsBefore; // damsBefore[i] is how many dams are in the sequences before i
+        private final long[] costs;
+        private final CostEngine engine;
+        private final int first;
+        private final int last; // exclusive
+
+        private ScoringTask(int[][] evaluationSequences, long[] damsBefore, long[] costs, CostEngine engine,
+                            int first, int last) {
+            this.evaluationSequences = evaluationSequences;
+            this.damsBefore = damsBefore;
+            this.costs = costs;
+            this.engine = engine;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            long dams = damsBefore[last] - damsBefore[first];
+            if (last - first == 1 || dams <= DAMS_PER_TASK) {
+                scoreSequences();
+                return;
+            }
+            // the first sequence that starts after half the dams, but leaving at least one on each side
+            int middle = Arrays.binarySearch(damsBefore, first + 1, last, damsBefore[first] + dams / 2);
+            if (middle < 0) {
+                middle = -middle - 1;
+            }
+            middle = Math.min(middle, last - 1);
+            invokeAll(new ScoringTask(evaluationSequences, damsBefore, costs, engine, first, middle),
+                    new ScoringTask(evaluationSequences, damsBefore, costs, engine, middle, last));
+        }
+
+        /**
+         * Scores this range of sequences on the current thread
+         */
+        private void scoreSequences() {
+            FenwickTree damsExamined = engine == CostEngine.FENWICK? new FenwickTree(damLocations.length) : null;
+            for (int sequence = first; sequence < last; sequence++) {
+                switch (engine) {
+                    case FENWICK:
+                        if (sequence > first) {
+                            damsExamined.clear();
+                        }
+                        costs[sequence] = fenwickCost(evaluationSequences[sequence], damsExamined);
+                        break;
+                    case REVERSE:
+                        costs[sequence] = reverseCost(evaluationSequences[sequence]);
+                        break;
+                    default:
+                        costs[sequence] = treeSetCost(evaluationSequences[sequence]);
+                }
+            }
+        }
+    }
 } // class
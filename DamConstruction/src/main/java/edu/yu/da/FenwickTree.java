@@ -0,0 +1,81 @@
+package edu.yu.da;
+
+import java.util.Arrays;
+
+/**
+ * A Fenwick tree (binary indexed tree) that counts which of the positions 0 to size - 1 have been marked,
+ * so that DamConstruction.cost() can find the closest marked dams on either side of a new one without boxing
+ * anything or allocating a node per dam
+ * Both counting the marks up to a position and finding the kth mark are O(lg n)
+ */
+class FenwickTree {
+
+    // counts[i] is the number of marks in the positions (i - lowbit(i), i], 1-indexed
+    private final int[] counts;
+    private final boolean[] marked;
+    // the biggest power of 2 that is at most the size, where select() starts walking down from
+    private final int highestBit;
+
+    /**
+     * @param size the number of positions that can be marked
+     */
+    FenwickTree(int size) {
+        counts = new int[size + 1];
+        marked = new boolean[size];
+        highestBit = Integer.highestOneBit(size);
+    }
+
+    /**
+     * Unmarks every position, so the same tree can be used again without allocating a new one
+     */
+    void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(marked, false);
+    }
+
+    /**
+     * Marks a position, if it isn't marked already
+     * @param position to mark, from 0 to size - 1
+     * @return true if it wasn't marked before, false if it was
+     */
+    boolean mark(int position) {
+        if (marked[position]) {
+            return false;
+        }
+        marked[position] = true;
+        for (int i = position + 1; i < counts.length; i += i & -i) {
+            counts[i]++;
+        }
+        return true;
+    }
+
+    /**
+     * @param position from 0 to size - 1
+     * @return the number of marked positions from 0 to position, inclusive
+     */
+    int countThrough(int position) {
+        int count = 0;
+        for (int i = position + 1; i > 0; i -= i & -i) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Finds the kth marked position, by walking down the tree and skipping every block with fewer than k marks
+     * @param k which mark to find, starting from 1, which must be no more than the number of marks
+     * @return the position of the kth mark
+     */
+    int select(int k) {
+        int position = 0; // 1-indexed, the last position we know has fewer than k marks up to it
+        for (int bit = highestBit; bit > 0; bit >>= 1) {
+            int next = position + bit;
+            if (next < counts.length && counts[next] < k) {
+                position = next;
+                k -= counts[next];
+            }
+        }
+        // position + 1 is the kth mark, 1-indexed, so it's position 0-indexed
+        return position;
+    }
+}
@@ -0,0 +1,199 @@
+package edu.yu.da;
+
+/**
+ * The dynamic programming behind DamConstruction.solve(), but with any cost for an interval instead of its length
+ * DamConstruction fills in its tables with fillDiagonal(), with the distance between the dams as the cost
+ * For positions 0 to size - 1, the best cost of an interval (l, r) with r > l + 1 is
+ * cost(l, r) + the minimum over l < k < r of best(l, k) + best(k, r), and an interval with nothing inside it is free
+ * So DamConstruction is the case where the positions are the dams and cost(l, r) is the distance between them
+ *
+ * If the cost satisfies the quadrangle inequality and never goes down when an interval gets bigger, Knuth's
+ * bounds work just like they do in DamConstruction, and it is O(n^2) instead of O(n^3)
+ */
+public class IntervalDP {
+
+    /**
+     * How the table gets filled in
+     * CUBIC always tries every split, which works for any cost
+     * KNUTH uses Knuth's bounds without checking, for a client who knows their cost satisfies the conditions
+     * (if it doesn't, the answer might not be the minimum)
+     * AUTO checks the conditions first, which is O(n^2) calls to the cost, and uses KNUTH if they hold,
+     * and CUBIC otherwise
+     */
+    public enum Optimization {
+        CUBIC, KNUTH, AUTO
+    }
+
+    /**
+     * The cost of evaluating a split of the interval from leftEnd to rightEnd, which doesn't depend on where the
+     * split is
+     * The ends are positions 0 to size - 1, not y-positions on a river: DamConstruction.EvaluationCost is the one
+     * that gets y-positions
+     */
+    @FunctionalInterface
+    public interface IntervalCost {
+        /**
+         * @param leftEnd the left end of the interval
+         * @param rightEnd the right end of the interval, > leftEnd + 1
+         * @return what it costs to split that interval
+         */
+        long cost(int leftEnd, int rightEnd);
+    }
+
+    private final int size;
+    private final IntervalCost intervalCost;
+    private final Optimization optimization;
+    // filled in by solve()
+    private TriangularTable costTable;
+    private TriangularTable splitTable;
+    private boolean usedKnuth;
+
+    /**
+     * @param size the number of positions, which must be at least 2
+     * @param intervalCost the cost of splitting each interval
+     * @param optimization how to fill in the table
+     */
+    public IntervalDP(final int size, final IntervalCost intervalCost, final Optimization optimization) {
+        if (size < 2) {
+            throw new IllegalArgumentException("size " + size + " must be at least 2, so there is an interval");
+        }
+        if (intervalCost == null) {
+            throw new IllegalArgumentException("intervalCost is null");
+        }
+        if (optimization == null) {
+            throw new IllegalArgumentException("optimization is null");
+        }
+        this.size = size;
+        this.intervalCost = intervalCost;
+        this.optimization = optimization;
+    }
+
+    /**
+     * Fills in the table the first time it's called, and after that just returns the answer
+     * @return the minimum total cost of splitting the interval from 0 to size - 1 all the way down
+     */
+    public synchronized long solve() {
+        if (costTable == null) {
+            usedKnuth = optimization == Optimization.KNUTH
+                    || optimization == Optimization.AUTO && satisfiesKnuthConditions(size, intervalCost);
+            fillTables();
+        }
+        return costTable.get(0, size - 1);
+    }
+
+    /**
+     * @return true if solve() used Knuth's bounds, which it only knows once it has run
+     */
+    public synchronized boolean usedKnuth() {
+        solve();
+        return usedKnuth;
+    }
+
+    /**
+     * @param leftEnd the left end of an interval
+     * @param rightEnd the right end of an interval, > leftEnd + 1
+     * @return where the interval is split first in the minimum-cost solution, solving it first if it wasn't
+     */
+    public synchronized int getSplit(final int leftEnd, final int rightEnd) {
+        if (leftEnd < 0 || rightEnd >= size || rightEnd - leftEnd < 2) {
+            throw new IllegalArgumentException("(" + leftEnd + ", " + rightEnd + ") isn't an interval with a split");
+        }
+        solve();
+        return (int) splitTable.get(leftEnd, rightEnd);
+    }
+
+    /**
+     * Checks whether Knuth's bounds give the right answer for a cost, which they do if for all a <= b <= c <= d:
+     * cost(a, c) + cost(b, d) <= cost(a, d) + cost(b, c) (the quadrangle inequality), and
+     * cost(b, c) <= cost(a, d) (it doesn't go down when the interval gets bigger)
+     * Checking every a, b, c, d would be O(n^4), but each inequality adds up from the ones between neighbors,
+     * so it's enough to check those, which is O(n^2)
+     * @param size the number of positions
+     * @param intervalCost the cost of splitting each interval
+     * @return true if the conditions hold for every interval with something inside it
+     */
+    public static boolean satisfiesKnuthConditions(final int size, final IntervalCost intervalCost) {
+        // costs are only ever used for intervals with a dam inside, so those are the only ones to check
+        for (int leftEnd = 0; leftEnd < size - 2; leftEnd++) {
+            for (int rightEnd = leftEnd + 2; rightEnd < size; rightEnd++) {
+                long cost = intervalCost.cost(leftEnd, rightEnd);
+                // growing on the right
+                if (rightEnd + 1 < size && intervalCost.cost(leftEnd, rightEnd + 1) < cost) {
+                    return false;
+                }
+                // growing on the left
+                if (leftEnd > 0 && intervalCost.cost(leftEnd - 1, rightEnd) < cost) {
+                    return false;
+                }
+                // the quadrangle inequality for the neighbors (l, r), (l + 1, r + 1) inside (l, r + 1),
+                // when (l + 1, r) still has something inside it
+                if (rightEnd + 1 < size && rightEnd - leftEnd > 2
+                        && cost + intervalCost.cost(leftEnd + 1, rightEnd + 1)
+                        > intervalCost.cost(leftEnd, rightEnd + 1) + intervalCost.cost(leftEnd + 1, rightEnd)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fills in the tables from the shortest intervals to the longest, one diagonal at a time
+     */
+    private void fillTables() {
+        costTable = TriangularTable.ofLongs(size);
+        splitTable = TriangularTable.ofInts(size);
+        // intervals with nothing inside cost nothing, which is already the default
+        setEmptySplits(splitTable, size);
+        for (int offset = 2; offset < size; offset++) {
+            fillDiagonal(costTable, splitTable, usedKnuth, intervalCost, offset, 0, size - offset);
+        }
+    }
+
+    /**
+     * Gives each interval with nothing inside it a split of l + 1
+     * An interval like that has no split of its own, but with Knuth's bounds, the intervals of offset 2 use it as
+     * a bound, and l + 1 is the only split they can choose anyway
+     * @param splitTable to set them in
+     * @param size the number of positions
+     */
+    static void setEmptySplits(TriangularTable splitTable, int size) {
+        for (int leftEnd = 0; leftEnd < size - 1; leftEnd++) {
+            splitTable.set(leftEnd, leftEnd + 1, leftEnd + 1);
+        }
+    }
+
+    /**
+     * Fills in the intervals (l, l + offset) for firstLeftEnd <= l < lastLeftEnd, which all need the shorter
+     * intervals inside them to be filled in already
+     * This is the one loop that fills in the table, for IntervalDP and for DamConstruction, whose wavefront gives
+     * each thread its own stretch of the diagonal
+     * @param costTable to fill in
+     * @param splitTable to fill in, or null if nobody needs it, which it can't be with Knuth's bounds
+     * @param knuthBounds true to use Knuth's bounds, false to check every split
+     * @param intervalCost the cost of splitting each interval
+     * @param offset how much longer the right end of each interval is than its left end, at least 2
+     * @param firstLeftEnd the left end of the first interval to fill in
+     * @param lastLeftEnd one past the left end of the last interval to fill in
+     */
+    static void fillDiagonal(TriangularTable costTable, TriangularTable splitTable, boolean knuthBounds,
+                             IntervalCost intervalCost, int offset, int firstLeftEnd, int lastLeftEnd) {
+        for (int leftEnd = firstLeftEnd; leftEnd < lastLeftEnd; leftEnd++) {
+            int rightEnd = leftEnd + offset;
+            // the triple loop. We check all splits between leftEnd and rightEnd, seeing which is cheapest
+            int firstSplit = leftEnd + 1;
+            int lastSplit = rightEnd - 1;
+            if (knuthBounds) {
+                // Knuth's bounds, kept strictly inside the interval
+                firstSplit = (int) Math.max(splitTable.get(leftEnd, rightEnd - 1), firstSplit);
+                lastSplit = (int) Math.min(splitTable.get(leftEnd + 1, rightEnd), lastSplit);
+            }
+            int split = costTable.bestSplit(leftEnd, rightEnd, firstSplit, lastSplit);
+            costTable.set(leftEnd, rightEnd, costTable.get(leftEnd, split) + costTable.get(split, rightEnd)
+                    + intervalCost.cost(leftEnd, rightEnd));
+            if (splitTable != null) {
+                splitTable.set(leftEnd, rightEnd, split);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package edu.yu.da;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A cache of DamConstruction solutions that lasts between runs, for a client who keeps solving the same rivers
+ * Each river is identified by a 128-bit fingerprint of its dams and river end, along with the number of dams and
+ * the river end themselves, so two different rivers will practically never be mixed up
+ *
+ * The index is a memory-mapped file of fixed-size slots, grouped into sets of WAYS slots like a CPU cache: a
+ * fingerprint can only go in one set, so a lookup only checks WAYS slots, and when the set is full, the least
+ * recently used slot in it is evicted. The minimum costs live in the index. Optionally, the optimal evaluation
+ * sequence is stored too, in its own file next to the index, since it's O(n) instead of the O(n^2) split table
+ * it was read out of, and it's what a client actually wants back.
+ *
+ * It is safe to use from many threads of one process, but not from two processes at the same time
+ */
+public class SolutionCache implements Closeable {
+
+    // the slots in each set, which is how many rivers that land in the same set can be remembered at once
+    static final int WAYS = 8;
+    private static final int MAGIC = 0x44414D53; // "DAMS"
+    // header: magic, number of sets, the clock that says how recently a slot was used
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final int CLOCK_OFFSET = Integer.BYTES * 2;
+    // slot: both halves of the fingerprint, dam count, river end, cost, when it was last used
+    private static final int SLOT_BYTES = Long.BYTES * 2 + Integer.BYTES * 2 + Long.BYTES * 2;
+    private static final String INDEX_FILE = "index";
+    private static final String SEQUENCE_SUFFIX = ".sequence";
+
+    private final Path directory;
+    private final boolean storeSequences;
+    private final int sets;
+    private final FileChannel channel;
+    private final MappedByteBuffer index;
+    private boolean closed;
+
+    /**
+     * Opens the cache in a directory, creating it if it isn't there
+     * If the directory already has a cache of a different capacity, or a damaged one, it is started over
+     * @param directory where the cache keeps its files
+     * @param capacity about how many rivers to remember, which is rounded up to a whole number of sets
+     * @param storeSequences true to also remember each river's optimal evaluation sequence
+     * @throws IOException if the files can't be created or mapped
+     */
+    public SolutionCache(final Path directory, final int capacity, final boolean storeSequences) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory is null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity " + capacity + " must be positive");
+        }
+        this.directory = directory;
+        this.storeSequences = storeSequences;
+        // a power of 2, so picking a set is a mask instead of a division
+        int setsNeeded = (capacity + WAYS - 1) / WAYS;
+        this.sets = setsNeeded == 1? 1 : Integer.highestOneBit(setsNeeded - 1) << 1;
+        long bytes = HEADER_BYTES + (long) sets * WAYS * SLOT_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity " + capacity + " is too big for one mapping");
+        }
+        Files.createDirectories(directory);
+        channel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() != bytes;
+        if (fresh) {
+            channel.truncate(0);
+        }
+        index = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        index.order(ByteOrder.LITTLE_ENDIAN);
+        if (fresh || index.getInt(0) != MAGIC || index.getInt(Integer.BYTES) != sets) {
+            // a new cache, or one we can't trust, so every slot starts out empty
+            for (int i = 0; i < bytes; i += Long.BYTES) {
+                index.putLong(i, 0);
+            }
+            index.putInt(0, MAGIC);
+            index.putInt(Integer.BYTES, sets);
+        }
+    }
+
+    /**
+     * @param damLocations of a river, including 0 and riverEnd
+     * @return its minimum cost, or -1 if it isn't in the cache, since no real cost is negative
+     */
+    synchronized long lookupCost(int[] damLocations) {
+        int slot = find(damLocations);
+        if (slot < 0) {
+            return -1;
+        }
+        touch(slot);
+        return index.getLong(slot + Long.BYTES * 2 + Integer.BYTES * 2);
+    }
+
+    /**
+     * @param damLocations of a river, including 0 and riverEnd
+     * @return its optimal evaluation sequence, or null if it isn't in the cache, or its sequence wasn't stored,
+     * or the sequence file isn't one int per dam, like if a crash cut it short
+     * @throws IOException if the sequence file can't be read
+     */
+    synchronized int[] lookupSequence(int[] damLocations) throws IOException {
+        int slot = find(damLocations);
+        if (slot < 0) {
+            return null;
+        }
+        Path sequenceFile = sequenceFile(index.getLong(slot), index.getLong(slot + Long.BYTES));
+        if (!Files.exists(sequenceFile)) {
+            return null;
+        }
+        // the file is read once and thrown away, so a plain read is cheaper than mapping it
+        int dams = damLocations.length - 2;
+        ByteBuffer bytes = ByteBuffer.allocate(dams * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel sequenceChannel = FileChannel.open(sequenceFile, StandardOpenOption.READ)) {
+            if (sequenceChannel.size() != bytes.capacity()) {
+                return null;
+            }
+            while (bytes.hasRemaining()) {
+                if (sequenceChannel.read(bytes) < 0) {
+                    return null; // it got shorter while we were reading it
+                }
+            }
+        }
+        bytes.flip();
+        int[] sequence = new int[dams];
+        bytes.asIntBuffer().get(sequence);
+        touch(slot);
+        return sequence;
+    }
+
+    /**
+     * Remembers a river's solution, evicting the least recently used one in its set if the set is full
+     * @param damLocations of a river, including 0 and riverEnd
+     * @param cost its minimum cost
+     * @param sequence its optimal evaluation sequence, which is ignored unless this cache stores sequences
+     * @throws IOException if the sequence file can't be written, or an evicted one can't be deleted
+     */
+    synchronized void store(int[] damLocations, long cost, int[] sequence) throws IOException {
+        long firstHalf = fingerprint(damLocations, 0x9E3779B97F4A7C15L);
+        long secondHalf = fingerprint(damLocations, 0xC2B2AE3D27D4EB4FL);
+        int slot = find(damLocations);
+        if (slot < 0) {
+            // an empty slot if there is one, otherwise the one used longest ago
+            int firstSlot = firstSlot(firstHalf);
+            slot = firstSlot;
+            for (int way = 0; way < WAYS; way++) {
+                int candidate = firstSlot + way * SLOT_BYTES;
+                if (isEmpty(candidate)) {
+                    slot = candidate;
+                    break;
+                }
+                if (lastUsed(candidate) < lastUsed(slot)) {
+                    slot = candidate;
+                }
+            }
+            if (!isEmpty(slot)) {
+                Files.deleteIfExists(sequenceFile(index.getLong(slot), index.getLong(slot + Long.BYTES)));
+            }
+        }
+        if (storeSequences && sequence != null) {
+            ByteBuffer bytes = ByteBuffer.allocate(sequence.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            bytes.asIntBuffer().put(sequence);
+            try (FileChannel sequenceChannel = FileChannel.open(sequenceFile(firstHalf, secondHalf),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (bytes.hasRemaining()) {
+                    sequenceChannel.write(bytes);
+                }
+            }
+        }
+        index.putLong(slot, firstHalf);
+        index.putLong(slot + Long.BYTES, secondHalf);
+        index.putInt(slot + Long.BYTES * 2, damLocations.length - 2);
+        index.putInt(slot + Long.BYTES * 2 + Integer.BYTES, damLocations[damLocations.length - 1]);
+        index.putLong(slot + Long.BYTES * 2 + Integer.BYTES * 2, cost);
+        touch(slot);
+    }
+
+    /**
+     * @return true if this cache also stores evaluation sequences
+     */
+    public boolean storesSequences() {
+        return storeSequences;
+    }
+
+    /**
+     * Writes the index back to the disk, and closes it
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            index.force();
+            channel.close();
+        }
+    }
+
+    /**
+     * @param damLocations of a river, including 0 and riverEnd
+     * @return the byte offset of its slot in the index, or -1 if it isn't there
+     */
+    private int find(int[] damLocations) {
+        if (closed) {
+            throw new IllegalStateException("The cache is closed");
+        }
+        long firstHalf = fingerprint(damLocations, 0x9E3779B97F4A7C15L);
+        long secondHalf = fingerprint(damLocations, 0xC2B2AE3D27D4EB4FL);
+        int firstSlot = firstSlot(firstHalf);
+        for (int way = 0; way < WAYS; way++) {
+            int slot = firstSlot + way * SLOT_BYTES;
+            if (!isEmpty(slot) && index.getLong(slot) == firstHalf && index.getLong(slot + Long.BYTES) == secondHalf
+                    && index.getInt(slot + Long.BYTES * 2) == damLocations.length - 2
+                    && index.getInt(slot + Long.BYTES * 2 + Integer.BYTES) == damLocations[damLocations.length - 1]) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param firstHalf of a fingerprint
+     * @return the byte offset of the first slot of the set it goes in
+     */
+    private int firstSlot(long firstHalf) {
+        // the high bits, since the low bits of the slot are checked too, and this way they're independent
+        int set = (int) (firstHalf >>> 40) & (sets - 1);
+        return HEADER_BYTES + set * WAYS * SLOT_BYTES;
+    }
+
+    private boolean isEmpty(int slot) {
+        // every river has at least one dam, so an empty slot is the only one with none
+        return index.getInt(slot + Long.BYTES * 2) == 0;
+    }
+
+    private long lastUsed(int slot) {
+        return index.getLong(slot + Long.BYTES * 3 + Integer.BYTES * 2);
+    }
+
+    /**
+     * Marks a slot as the most recently used one
+     */
+    private void touch(int slot) {
+        long clock = index.getLong(CLOCK_OFFSET) + 1;
+        index.putLong(CLOCK_OFFSET, clock);
+        index.putLong(slot + Long.BYTES * 3 + Integer.BYTES * 2, clock);
+    }
+
+    private Path sequenceFile(long firstHalf, long secondHalf) {
+        return directory.resolve(Long.toHexString(firstHalf) + "-" + Long.toHexString(secondHalf) + SEQUENCE_SUFFIX);
+    }
+
+    /**
+     * Hashes every dam, mixing each one in with the bits of a murmur finalizer, so that every dam affects every bit
+     * @param damLocations of a river, including 0 and riverEnd
+     * @param seed so that two different seeds give two independent halves of the fingerprint
+     * @return one half of the fingerprint
+     */
+    static long fingerprint(int[] damLocations, long seed) {
+        long hash = seed ^ damLocations.length;
+        for (int dam : damLocations) {
+            hash = (hash ^ dam) * 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+        }
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,277 @@
+package edu.yu.da;
+
+/**
+ * A table of values for every interval (leftEnd, rightEnd) with leftEnd < rightEnd, which is all that the dynamic
+ * programming in DamConstruction ever uses
+ * Instead of a square int[][] that leaves the lower half empty and makes every access go through a row pointer,
+ * the upper triangle is stored in a single flat array, one row after another, and found with index arithmetic
+ * Costs are stored as ints when they are guaranteed to fit, and as longs otherwise
+ * A cost table can also be dual, which keeps a second copy of every cell in column-major order, so that the
+ * inner loop reads both table(leftEnd, split) and table(split, rightEnd) one after another, instead of jumping a
+ * whole row for every step down the column. It costs twice the memory and twice the writes.
+ */
+abstract class TriangularTable {
+
+    // the biggest array the JVM will reliably allocate
+    private static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private final int size;
+
+    private TriangularTable(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Makes a table for the costs of a river, which holds its values as ints if it can
+     * No interval's optimal cost is more than evaluating its dams in binary-search order, and each level of that
+     * search evaluates disjoint parts of the river, so no cost is more than riverEnd times the number of levels.
+     * If that fits in an int, so does everything we will store.
+     * @param damLocations every dam, including the ones at 0 and riverEnd, sorted ascending
+     * @return an empty table with a cell for every interval of damLocations
+     */
+    static TriangularTable forCosts(int[] damLocations) {
+        return forCosts(damLocations, false);
+    }
+
+    /**
+     * Like forCosts(damLocations), but can also make a dual table
+     * @param damLocations every dam, including the ones at 0 and riverEnd, sorted ascending
+     * @param dual true to also keep the cells in column-major order
+     * @return an empty table with a cell for every interval of damLocations
+     */
+    static TriangularTable forCosts(int[] damLocations, boolean dual) {
+        int dams = damLocations.length - 2;
+        int levels = Integer.SIZE - Integer.numberOfLeadingZeros(dams);
+        long maxCost = (long) damLocations[damLocations.length - 1] * levels;
+        if (maxCost <= Integer.MAX_VALUE) {
+            return dual? new DualInts(damLocations.length) : ofInts(damLocations.length);
+        }
+        return dual? new DualLongs(damLocations.length) : ofLongs(damLocations.length);
+    }
+
+    /**
+     * @param size the number of positions, so that intervals go from 0 to size - 1
+     * @return an empty table that stores its values as ints
+     */
+    static TriangularTable ofInts(int size) {
+        return new Ints(size);
+    }
+
+    /**
+     * @param size the number of positions, so that intervals go from 0 to size - 1
+     * @return an empty table that stores its values as longs
+     */
+    static TriangularTable ofLongs(int size) {
+        return new Longs(size);
+    }
+
+    /**
+     * @return the number of positions, so that intervals go from 0 to size() - 1
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param size the number of positions
+     * @return the number of intervals between them, which is the length of the flat array
+     */
+    static int cells(int size) {
+        long cells = (long) size * (size - 1) / 2;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException(size + " positions are too many for a single table");
+        }
+        return (int) cells;
+    }
+
+    /**
+     * Row leftEnd starts after the rows above it, which have size - 1, size - 2, ... size - leftEnd cells
+     * @param leftEnd the left end of the interval
+     * @param rightEnd the right end of the interval, leftEnd < rightEnd < size
+     * @return where the interval is in the flat array
+     */
+    final int index(int leftEnd, int rightEnd) {
+        return (int) ((long) leftEnd * (2 * size - leftEnd - 1) / 2) + rightEnd - leftEnd - 1;
+    }
+
+    /**
+     * @return the value for the interval from leftEnd to rightEnd, leftEnd < rightEnd
+     */
+    abstract long get(int leftEnd, int rightEnd);
+
+    /**
+     * Stores the value for the interval from leftEnd to rightEnd, leftEnd < rightEnd
+     */
+    abstract void set(int leftEnd, int rightEnd, long value);
+
+    /**
+     * The inner loop of the dynamic programming: finds the dam to evaluate first between leftEnd and rightEnd,
+     * which is the one that minimizes table(leftEnd, split) + table(split, rightEnd)
+     * It lives here, rather than in DamConstruction, so it can walk along the row and down the column by
+     * adding to the flat index, instead of working out each index from scratch
+     * @param leftEnd the left end of the interval
+     * @param rightEnd the right end of the interval
+     * @param firstSplit the first dam to try, > leftEnd
+     * @param lastSplit the last dam to try, >= firstSplit and < rightEnd
+     * @return the cheapest dam, the leftmost one if there is a tie
+     */
+    abstract int bestSplit(int leftEnd, int rightEnd, int firstSplit, int lastSplit);
+
+    /**
+     * How far apart table(split, rightEnd) and table(split + 1, rightEnd) are in the flat array: the rest of
+     * row split, which is one shorter than the size() - split - 1 cells in the row, since row split + 1 starts
+     * one column further right
+     */
+    final int columnStep(int split) {
+        return size - split - 2;
+    }
+
+    /**
+     * Column rightEnd starts after the columns to its left, which have 1, 2, ... rightEnd - 1 cells
+     * @param leftEnd the left end of the interval
+     * @param rightEnd the right end of the interval, leftEnd < rightEnd < size
+     * @return where the interval is in a flat array of the columns, one after another
+     */
+    final int columnMajorIndex(int leftEnd, int rightEnd) {
+        return (int) ((long) rightEnd * (rightEnd - 1) / 2) + leftEnd;
+    }
+
+    private static class Ints extends TriangularTable {
+        final int[] values;
+
+        private Ints(int size) {
+            super(size);
+            values = new int[cells(size)];
+        }
+
+        @Override
+        long get(int leftEnd, int rightEnd) {
+            return values[index(leftEnd, rightEnd)];
+        }
+
+        @Override
+        void set(int leftEnd, int rightEnd, long value) {
+            values[index(leftEnd, rightEnd)] = (int) value;
+        }
+
+        @Override
+        int bestSplit(int leftEnd, int rightEnd, int firstSplit, int lastSplit) {
+            int rowIndex = index(leftEnd, firstSplit);
+            int columnIndex = index(firstSplit, rightEnd);
+            int bestSplit = firstSplit;
+            long bestCost = Long.MAX_VALUE;
+            for (int split = firstSplit; split <= lastSplit; split++) {
+                long cost = (long) values[rowIndex] + values[columnIndex];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestSplit = split;
+                }
+                rowIndex++;
+                columnIndex += columnStep(split);
+            }
+            return bestSplit;
+        }
+    }
+
+    private static class Longs extends TriangularTable {
+        final long[] values;
+
+        private Longs(int size) {
+            super(size);
+            values = new long[cells(size)];
+        }
+
+        @Override
+        long get(int leftEnd, int rightEnd) {
+            return values[index(leftEnd, rightEnd)];
+        }
+
+        @Override
+        void set(int leftEnd, int rightEnd, long value) {
+            values[index(leftEnd, rightEnd)] = value;
+        }
+
+        @Override
+        int bestSplit(int leftEnd, int rightEnd, int firstSplit, int lastSplit) {
+            int rowIndex = index(leftEnd, firstSplit);
+            int columnIndex = index(firstSplit, rightEnd);
+            int bestSplit = firstSplit;
+            long bestCost = Long.MAX_VALUE;
+            for (int split = firstSplit; split <= lastSplit; split++) {
+                long cost = values[rowIndex] + values[columnIndex];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestSplit = split;
+                }
+                rowIndex++;
+                columnIndex += columnStep(split);
+            }
+            return bestSplit;
+        }
+    }
+
+    private static class DualInts extends Ints {
+        private final int[] columns;
+
+        private DualInts(int size) {
+            super(size);
+            columns = new int[cells(size)];
+        }
+
+        @Override
+        void set(int leftEnd, int rightEnd, long value) {
+            super.set(leftEnd, rightEnd, value);
+            columns[columnMajorIndex(leftEnd, rightEnd)] = (int) value;
+        }
+
+        @Override
+        int bestSplit(int leftEnd, int rightEnd, int firstSplit, int lastSplit) {
+            int[] rows = values;
+            int rowIndex = index(leftEnd, firstSplit);
+            // the column is in order too, so it's the same walk as the row
+            int columnIndex = columnMajorIndex(firstSplit, rightEnd) - rowIndex;
+            int bestSplit = firstSplit;
+            long bestCost = Long.MAX_VALUE;
+            for (int split = firstSplit; split <= lastSplit; split++, rowIndex++) {
+                long cost = (long) rows[rowIndex] + columns[columnIndex + rowIndex];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestSplit = split;
+                }
+            }
+            return bestSplit;
+        }
+    }
+
+    private static class DualLongs extends Longs {
+        private final long[] columns;
+
+        private DualLongs(int size) {
+            super(size);
+            columns = new long[cells(size)];
+        }
+
+        @Override
+        void set(int leftEnd, int rightEnd, long value) {
+            super.set(leftEnd, rightEnd, value);
+            columns[columnMajorIndex(leftEnd, rightEnd)] = value;
+        }
+
+        @Override
+        int bestSplit(int leftEnd, int rightEnd, int firstSplit, int lastSplit) {
+            long[] rows = values;
+            int rowIndex = index(leftEnd, firstSplit);
+            int columnIndex = columnMajorIndex(firstSplit, rightEnd) - rowIndex;
+            int bestSplit = firstSplit;
+            long bestCost = Long.MAX_VALUE;
+            for (int split = firstSplit; split <= lastSplit; split++, rowIndex++) {
+                long cost = rows[rowIndex] + columns[columnIndex + rowIndex];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestSplit = split;
+                }
+            }
+            return bestSplit;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import edu.yu.da.DamConstruction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the engines of cost() on one random order of n dams
+ * Unlike the BigOIt tests, this isn't run by mvn test, since the big sizes take a while:
+ * mvn -Pbenchmark test-compile exec:exec
+ * The GC profiler is always on, so that gc.alloc.rate.norm shows how much garbage the TreeSet makes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g") // 10^7 dams in a TreeSet is about 600MB of nodes and Integers
+public class DamConstructionBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int n;
+
+    private DamConstruction damRegulator;
+    private int[] evaluationSequence;
+
+    @Setup
+    public void setup() {
+        Random pablo = new Random(1954);
+        int[] dams = new int[n];
+        dams[0] = pablo.nextInt(5) + 1;
+        for (int i = 1; i < n; i++) {
+            dams[i] = dams[i - 1] + pablo.nextInt(5) + 1;
+        }
+        damRegulator = new DamConstruction(dams, dams[n - 1] + 1);
+        // a random order, since a sorted one would make the TreeSet look better than it is
+        evaluationSequence = dams.clone();
+        for (int i = n - 1; i > 0; i--) {
+            int j = pablo.nextInt(i + 1);
+            int temp = evaluationSequence[i];
+            evaluationSequence[i] = evaluationSequence[j];
+            evaluationSequence[j] = temp;
+        }
+    }
+
+    @Benchmark
+    public long treeSet() {
+        return damRegulator.totalCost(evaluationSequence, DamConstruction.CostEngine.TREE_SET);
+    }
+
+    @Benchmark
+    public long fenwick() {
+        return damRegulator.totalCost(evaluationSequence, DamConstruction.CostEngine.FENWICK);
+    }
+
+    @Benchmark
+    public long reverse() {
+        return damRegulator.totalCost(evaluationSequence, DamConstruction.CostEngine.REVERSE);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(DamConstructionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import edu.yu.da.DamConstruction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares solving with the row-major cost table and with the dual one
+ * Each solve takes seconds, so every iteration is a single solve:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=benchmarks.TableLayoutBenchmark
+ * The defaults are KNUTH, which is O(n^2), so n = 20000 is under a minute a solve, and the whole run is minutes
+ * KNUTH only checks a couple of splits per interval, so the dual table's extra writes cost more than its reads
+ * save: on the machine I tried, rowMajor was 0.64s, 4.5s and 21s at n = 5000, 10000 and 20000, and dual was
+ * 0.97s, 7.0s and 47s
+ * CUBIC is where the layout matters most, since its inner loop walks a whole column, but it's O(n^3), so only
+ * try it at n = 5000: -Dbenchmark.args="-p algorithm=CUBIC -p n=5000"
+ * (at n = 20000 it would be days)
+ * On a machine with perf, add -prof perfnorm to the arguments to see the cache misses per solve
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g") // at n = 20000 KNUTH's dual table and split table are 2.4GB
+public class TableLayoutBenchmark {
+
+    @Param({"5000", "10000", "20000"})
+    private int n;
+
+    @Param({"KNUTH"})
+    private DamConstruction.Algorithm algorithm;
+
+    private DamConstruction damRegulator;
+
+    @Setup
+    public void setup() {
+        Random pablo = new Random(1929);
+        int[] dams = new int[n];
+        dams[0] = pablo.nextInt(5) + 1;
+        for (int i = 1; i < n; i++) {
+            dams[i] = dams[i - 1] + pablo.nextInt(5) + 1;
+        }
+        damRegulator = new DamConstruction(dams, dams[n - 1] + 1);
+    }
+
+    @Benchmark
+    public long rowMajor() {
+        return damRegulator.minimumCost(algorithm, DamConstruction.TableLayout.ROW_MAJOR);
+    }
+
+    @Benchmark
+    public long dual() {
+        return damRegulator.minimumCost(algorithm, DamConstruction.TableLayout.DUAL);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(TableLayoutBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
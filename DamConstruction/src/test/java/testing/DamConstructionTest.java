@@ -1,15 +1,46 @@
 package testing;
 
 import edu.yu.da.DamConstruction;
+import edu.yu.da.IntervalDP;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
 import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DamConstructionTest {
     // this will contain all my tests
 
+    // tests for the constructor
+    @Test
+    public void badDamsConstructorTest() {
+        assertThrows(IllegalArgumentException.class, () -> new DamConstruction(new int[0], 4));
+        assertThrows(IllegalArgumentException.class, () -> new DamConstruction(new int[]{0, 2}, 4));
+        assertThrows(IllegalArgumentException.class, () -> new DamConstruction(new int[]{1, 4}, 4));
+        assertThrows(IllegalArgumentException.class, () -> new DamConstruction(new int[]{1, 2, 2}, 4));
+        assertThrows(IllegalArgumentException.class, () -> new DamConstruction(new int[]{2, 1}, 4));
+        assertThrows(IllegalArgumentException.class, () -> new DamConstruction(new int[]{1, 2, 3}, 3));
+    }
+
+    // the trusted factory doesn't check anything, but should give the same answers for good dams
+    @Test
+    public void trustedConstructorTest() {
+        int[] dams = {6, 7, 8, 10, 13, 15};
+        DamConstruction damRegulator = DamConstruction.trusted(dams, 20);
+        assertEquals(51, damRegulator.solve());
+        assertEquals(new DamConstruction(dams, 20).cost(dams), damRegulator.cost(dams));
+        // client maintains ownership
+        dams[0] = 1;
+        assertEquals(51, damRegulator.solve());
+        assertThrows(IllegalArgumentException.class, () -> DamConstruction.trusted(null, 20));
+    }
+
     // tests for cost
     // test that for a single dam, it gets it right
     @Test
@@ -90,6 +121,116 @@ public class DamConstructionTest {
         assertEquals(cost, damRegulator.cost(dams));
     }
 
+    // the same river, but the whole cost, which is too big for an int, and every engine has to add it up as a long
+    @Test
+    public void manyDamsTotalCostTest() {
+        int[] dams = new int[1_000_000];
+        long cost = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            dams[i] = i + 1;
+            cost += 2_000_000 - i;
+        }
+
+        DamConstruction damRegulator = new DamConstruction(dams, 2_000_000);
+        assertTrue(cost > Integer.MAX_VALUE);
+        assertEquals(cost, damRegulator.totalCost(dams));
+        for (DamConstruction.CostEngine engine : DamConstruction.CostEngine.values()) {
+            assertEquals(cost, damRegulator.totalCost(dams, engine), engine.toString());
+        }
+        assertEquals((int) cost, damRegulator.cost(dams));
+    }
+
+    // every engine should agree on random orders of random rivers
+    @Test
+    public void costEnginesMatchTest() {
+        Random pablo = new Random(1492);
+        for (int trial = 0; trial < 200; trial++) {
+            int n = pablo.nextInt(60) + 1;
+            int[] dams = new int[n];
+            dams[0] = pablo.nextInt(5) + 1;
+            for (int i = 1; i < n; i++) {
+                dams[i] = dams[i - 1] + pablo.nextInt(5) + 1;
+            }
+            DamConstruction damRegulator = new DamConstruction(dams, dams[n - 1] + pablo.nextInt(5) + 1);
+            // a shuffled order, and sometimes only some of the dams
+            int[] order = dams.clone();
+            for (int i = n - 1; i > 0; i--) {
+                int j = pablo.nextInt(i + 1);
+                int temp = order[i]; order[i] = order[j]; order[j] = temp;
+            }
+            order = Arrays.copyOf(order, pablo.nextInt(n) + 1);
+            long expected = damRegulator.totalCost(order, DamConstruction.CostEngine.TREE_SET);
+            for (DamConstruction.CostEngine engine : DamConstruction.CostEngine.values()) {
+                assertEquals(expected, damRegulator.totalCost(order, engine), engine.toString());
+            }
+        }
+    }
+
+    // evaluating a dam twice costs nothing the second time, like it always did
+    @Test
+    public void repeatedDamCostTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{1, 2}, 4);
+        assertEquals(6, damRegulator.cost(new int[]{2, 2, 1, 2}));
+        for (DamConstruction.CostEngine engine : DamConstruction.CostEngine.values()) {
+            assertEquals(6, damRegulator.totalCost(new int[]{2, 2, 1, 2}, engine), engine.toString());
+        }
+    }
+
+    // the Fenwick tree and the linked list only know about the dams in Y, but cost() still scores any position
+    @Test
+    public void unknownDamCostTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{1, 3}, 4);
+        assertEquals(4, damRegulator.cost(new int[]{2}));
+        assertEquals(4, damRegulator.totalCost(new int[]{2}));
+        assertThrows(IllegalArgumentException.class,
+                () -> damRegulator.totalCost(new int[]{2}, DamConstruction.CostEngine.FENWICK));
+        assertThrows(IllegalArgumentException.class,
+                () -> damRegulator.totalCost(new int[]{4}, DamConstruction.CostEngine.FENWICK));
+        assertThrows(IllegalArgumentException.class,
+                () -> damRegulator.totalCost(new int[]{1, 2}, DamConstruction.CostEngine.REVERSE));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.totalCost(new int[]{1}, null));
+        assertEquals(4, damRegulator.totalCost(new int[]{2}, DamConstruction.CostEngine.TREE_SET));
+    }
+
+    // scoring a batch should get the same as scoring each one, with enough of them to split between threads
+    // the sequences are all different lengths, so the split has to go by dams, not by sequences
+    @Test
+    public void batchCostTest() {
+        Random pablo = new Random(1815);
+        int[] dams = IntStream.rangeClosed(1, 200).map(i -> i * 3 - pablo.nextInt(3)).toArray();
+        DamConstruction damRegulator = new DamConstruction(dams, 601);
+        int[][] orders = new int[1000][];
+        for (int order = 0; order < orders.length; order++) {
+            orders[order] = dams.clone();
+            for (int i = dams.length - 1; i > 0; i--) {
+                int j = pablo.nextInt(i + 1);
+                int temp = orders[order][i]; orders[order][i] = orders[order][j]; orders[order][j] = temp;
+            }
+            orders[order] = Arrays.copyOf(orders[order], pablo.nextInt(dams.length) + 1);
+        }
+        long[] costs = damRegulator.totalCosts(orders);
+        assertEquals(orders.length, costs.length);
+        for (int order = 0; order < orders.length; order++) {
+            assertEquals(damRegulator.totalCost(orders[order], DamConstruction.CostEngine.TREE_SET), costs[order]);
+        }
+        for (DamConstruction.CostEngine engine : DamConstruction.CostEngine.values()) {
+            assertArrayEquals(costs, damRegulator.totalCosts(orders, engine), engine.toString());
+        }
+        assertEquals(0, damRegulator.totalCosts(new int[0][]).length);
+    }
+
+    @Test
+    public void badBatchCostTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{1, 3}, 4);
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.totalCosts(null));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.totalCosts(new int[][]{{1, 3}, null}));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.totalCosts(new int[][]{{1, 3}, {}}));
+        assertThrows(IllegalArgumentException.class,
+                () -> damRegulator.totalCosts(new int[][]{{1, 3}, {2}}, DamConstruction.CostEngine.REVERSE));
+        assertArrayEquals(new long[]{7, 4}, damRegulator.totalCosts(new int[][]{{1, 3}, {2}}));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.totalCosts(new int[][]{{1, 3}}, null));
+    }
+
     // test that it gets it right for a 1-dam system
     @Test
     public void singleDamSolveTest() {
@@ -182,4 +323,198 @@ public class DamConstructionTest {
         assertEquals(7, damRegulator.solve());
     }
 
+    // every algorithm gets the same answer as the cubic solution on random rivers
+    @Test
+    public void algorithmsMatchCubicTest() {
+        Random pablo = new Random(613);
+        for (int trial = 0; trial < 200; trial++) {
+            DamConstruction damRegulator = randomRiver(pablo, pablo.nextInt(40) + 1);
+            int expected = damRegulator.solve(DamConstruction.Algorithm.CUBIC);
+            for (DamConstruction.Algorithm algorithm : DamConstruction.Algorithm.values()) {
+                assertEquals(expected, damRegulator.solve(algorithm), algorithm.toString());
+            }
+        }
+    }
+
+    // the dual layout should get the same answers with every algorithm, whether the table holds ints or longs
+    @Test
+    public void dualLayoutMatchesTest() {
+        Random pablo = new Random(1969);
+        for (int trial = 0; trial < 50; trial++) {
+            DamConstruction damRegulator = randomRiver(pablo, pablo.nextInt(60) + 1);
+            long expected = damRegulator.minimumCost(DamConstruction.Algorithm.CUBIC);
+            for (DamConstruction.Algorithm algorithm : DamConstruction.Algorithm.values()) {
+                assertEquals(expected, damRegulator.minimumCost(algorithm, DamConstruction.TableLayout.DUAL),
+                        algorithm.toString());
+            }
+            assertEquals(expected, damRegulator.cost(damRegulator.optimalEvaluationSequence()));
+        }
+        DamConstruction damRegulator = new DamConstruction(new int[]{500_000_000, 1_000_000_000, 1_500_000_000}, 2_000_000_000);
+        assertEquals(4_000_000_000L,
+                damRegulator.minimumCost(DamConstruction.Algorithm.CUBIC, DamConstruction.TableLayout.DUAL));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.minimumCost(DamConstruction.Algorithm.CUBIC, null));
+    }
+
+    // the wavefront splits big diagonals up between threads, so it needs a river big enough to do that
+    @Test
+    public void wavefrontBigRiverTest() {
+        DamConstruction damRegulator = randomRiver(new Random(1948), 500);
+        long expected = damRegulator.minimumCost(DamConstruction.Algorithm.KNUTH);
+        assertEquals(expected, damRegulator.minimumCost(DamConstruction.Algorithm.WAVEFRONT_CUBIC));
+        assertEquals(expected, damRegulator.minimumCost(DamConstruction.Algorithm.WAVEFRONT_KNUTH));
+    }
+
+    // and on the hand-made cases
+    @Test
+    public void knuthSixDamSolveTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 20);
+        assertEquals(51, damRegulator.solve(DamConstruction.Algorithm.KNUTH));
+        damRegulator = new DamConstruction(new int[]{1}, 4);
+        assertEquals(4, damRegulator.solve(DamConstruction.Algorithm.KNUTH));
+    }
+
+    // Knuth's optimization can handle a river far bigger than the cubic solution can in a test
+    @Test
+    public void knuthManyDamsSolveTest() {
+        int[] dams = IntStream.rangeClosed(1, 2047).toArray();
+        // with evenly spaced dams, the best you can do is binary search, so every level costs the whole river
+        DamConstruction damRegulator = new DamConstruction(dams, 2048);
+        assertEquals(2048 * 11, damRegulator.solve(DamConstruction.Algorithm.KNUTH));
+    }
+
+    // a river so long that the minimum cost doesn't fit in an int
+    @Test
+    public void overflowSolveTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{500_000_000, 1_000_000_000, 1_500_000_000}, 2_000_000_000);
+        // the middle one first, then the other two
+        assertEquals(4_000_000_000L, damRegulator.minimumCost(DamConstruction.Algorithm.CUBIC));
+        assertEquals(4_000_000_000L, damRegulator.minimumCost(DamConstruction.Algorithm.KNUTH));
+        assertThrows(ArithmeticException.class, damRegulator::solve);
+
+        int[] dams = IntStream.rangeClosed(1, 2047).map(i -> i * 1_000_000).toArray();
+        damRegulator = new DamConstruction(dams, 2048 * 1_000_000);
+        assertEquals(2048L * 1_000_000 * 11, damRegulator.minimumCost(DamConstruction.Algorithm.KNUTH));
+    }
+
+    // with the distance as the callback, it's the same problem as solve()
+    // and with a different cost, it should be the same as IntervalDP on the dams' positions
+    @Test
+    public void callbackCostSolveTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 20);
+        assertEquals(51, damRegulator.minimumCost((left, right) -> right - left));
+        int[] dams = {0, 6, 7, 8, 10, 13, 15, 20};
+        DamConstruction.EvaluationCost squared = (left, right) -> (long) (right - left) * (right - left);
+        assertEquals(new IntervalDP(dams.length, (l, r) -> squared.cost(dams[l], dams[r]),
+                IntervalDP.Optimization.CUBIC).solve(), damRegulator.minimumCost(squared));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.minimumCost((DamConstruction.EvaluationCost) null));
+    }
+
+    // the sequence we get back should cost exactly what solve() said it would, whichever algorithm filled the table
+    @Test
+    public void evaluationSequenceCostsMinimumTest() {
+        Random pablo = new Random(1066);
+        for (int trial = 0; trial < 100; trial++) {
+            int n = pablo.nextInt(40) + 1;
+            DamConstruction damRegulator = randomRiver(pablo, n);
+            int minimum = damRegulator.solve();
+            for (DamConstruction.Algorithm algorithm : DamConstruction.Algorithm.values()) {
+                int[] sequence = damRegulator.optimalEvaluationSequence(algorithm);
+                assertEquals(n, sequence.length);
+                assertEquals(minimum, damRegulator.cost(sequence), algorithm.toString());
+                assertEquals(minimum, damRegulator.minimumCost(), algorithm.toString());
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> randomRiver(pablo, 3).optimalEvaluationSequence((DamConstruction.Algorithm) null));
+    }
+
+    // after a solve with Knuth's bounds, the sequence comes out of the table that solve kept
+    @Test
+    public void evaluationSequenceAfterKnuthSolveTest() {
+        Random pablo = new Random(1215);
+        for (int trial = 0; trial < 100; trial++) {
+            int n = pablo.nextInt(40) + 1;
+            DamConstruction damRegulator = randomRiver(pablo, n);
+            int minimum = damRegulator.solve(DamConstruction.Algorithm.KNUTH);
+            assertEquals(minimum, damRegulator.cost(damRegulator.optimalEvaluationSequence()));
+        }
+    }
+
+    // if we never solved it, it should solve it itself
+    @Test
+    public void evaluationSequenceWithoutSolveTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 20);
+        assertEquals(51, damRegulator.cost(damRegulator.optimalEvaluationSequence()));
+        damRegulator = new DamConstruction(new int[]{1}, 4);
+        assertArrayEquals(new int[]{1}, damRegulator.optimalEvaluationSequence());
+    }
+
+    // adding and removing dams one at a time should always agree with solving the new river from scratch
+    @Test
+    public void incrementalMatchesFreshSolveTest() {
+        Random pablo = new Random(1776);
+        for (int trial = 0; trial < 20; trial++) {
+            int riverEnd = pablo.nextInt(100) + 20;
+            TreeSet<Integer> dams = new TreeSet<>();
+            dams.add(pablo.nextInt(riverEnd - 1) + 1);
+            DamConstruction damRegulator = new DamConstruction(toArray(dams), riverEnd);
+            for (int step = 0; step < 30; step++) {
+                int y = pablo.nextInt(riverEnd - 1) + 1;
+                if (dams.contains(y) && dams.size() > 1) {
+                    dams.remove(y);
+                    damRegulator = damRegulator.withoutDam(y);
+                } else if (!dams.contains(y)) {
+                    dams.add(y);
+                    damRegulator = damRegulator.withDam(y);
+                }
+                DamConstruction fresh = new DamConstruction(toArray(dams), riverEnd);
+                assertEquals(fresh.solve(), damRegulator.minimumCost());
+                assertEquals(fresh.solve(), damRegulator.cost(damRegulator.optimalEvaluationSequence()));
+            }
+        }
+    }
+
+    // the original shouldn't change, since each DamConstruction is immutable
+    @Test
+    public void incrementalLeavesOriginalTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 20);
+        assertEquals(51, damRegulator.solve());
+        DamConstruction withSeven = new DamConstruction(new int[]{7}, 20);
+        assertEquals(new DamConstruction(new int[]{6, 7, 8, 10, 13, 15, 17}, 20).solve(),
+                damRegulator.withDam(17).minimumCost());
+        assertEquals(new DamConstruction(new int[]{6, 8, 10, 13, 15}, 20).solve(),
+                damRegulator.withoutDam(7).minimumCost());
+        assertEquals(51, damRegulator.minimumCost());
+        assertEquals(20, withSeven.minimumCost());
+    }
+
+    @Test
+    public void badIncrementalTest() {
+        DamConstruction damRegulator = new DamConstruction(new int[]{6, 7}, 20);
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.withDam(7));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.withDam(0));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.withDam(20));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.withoutDam(8));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.withoutDam(20));
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.withoutDam(6).withoutDam(7));
+    }
+
+    private int[] toArray(TreeSet<Integer> dams) {
+        return dams.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param pablo random number generator
+     * @param n number of dams
+     * @return a DamConstruction with n dams that are 1 to 5 apart
+     */
+    private DamConstruction randomRiver(Random pablo, int n) {
+        int[] dams = new int[n];
+        dams[0] = pablo.nextInt(5) + 1;
+        for (int i = 1; i < n; i++) {
+            dams[i] = dams[i - 1] + pablo.nextInt(5) + 1;
+        }
+        return new DamConstruction(dams, dams[n - 1] + pablo.nextInt(5) + 1);
+    }
+
 }
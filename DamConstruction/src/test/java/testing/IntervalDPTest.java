@@ -0,0 +1,93 @@
+package testing;
+
+import edu.yu.da.IntervalDP;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntervalDPTest {
+
+    // with the distance as the cost, it's just the dam problem: the six dams from DamConstructionTest
+    @Test
+    public void distanceCostTest() {
+        int[] dams = {0, 6, 7, 8, 10, 13, 15, 20};
+        for (IntervalDP.Optimization optimization : IntervalDP.Optimization.values()) {
+            IntervalDP intervalDP = new IntervalDP(dams.length, (l, r) -> dams[r] - dams[l], optimization);
+            assertEquals(51, intervalDP.solve(), optimization.toString());
+        }
+        IntervalDP intervalDP = new IntervalDP(dams.length, (l, r) -> dams[r] - dams[l], IntervalDP.Optimization.AUTO);
+        assertTrue(intervalDP.usedKnuth());
+    }
+
+    // a river whose terrain makes some stretches cost more to evaluate than others
+    // the cost of a stretch is a sum of positive weights, so it still satisfies Knuth's conditions
+    @Test
+    public void terrainWeightedCostTest() {
+        Random pablo = new Random(1869);
+        for (int trial = 0; trial < 50; trial++) {
+            int size = pablo.nextInt(60) + 3;
+            long[] terrain = new long[size]; // terrain[i] is the cost of the river up to position i
+            for (int i = 1; i < size; i++) {
+                terrain[i] = terrain[i - 1] + pablo.nextInt(20) + 1;
+            }
+            IntervalDP.IntervalCost cost = (l, r) -> terrain[r] - terrain[l];
+            assertTrue(IntervalDP.satisfiesKnuthConditions(size, cost));
+            long expected = new IntervalDP(size, cost, IntervalDP.Optimization.CUBIC).solve();
+            assertEquals(expected, new IntervalDP(size, cost, IntervalDP.Optimization.AUTO).solve());
+        }
+    }
+
+    // a cost that gets cheaper for bigger intervals breaks Knuth's conditions, so AUTO has to fall back on CUBIC
+    @Test
+    public void nonMonotoneCostTest() {
+        Random pablo = new Random(1903);
+        for (int trial = 0; trial < 50; trial++) {
+            int size = pablo.nextInt(30) + 4;
+            long[][] costs = new long[size][size];
+            for (int l = 0; l < size; l++) {
+                for (int r = l + 1; r < size; r++) {
+                    costs[l][r] = pablo.nextInt(100);
+                }
+            }
+            costs[0][size - 1] = 0; // the biggest interval is cheaper than the ones inside it
+            IntervalDP.IntervalCost cost = (l, r) -> costs[l][r];
+            assertFalse(IntervalDP.satisfiesKnuthConditions(size, cost));
+            IntervalDP auto = new IntervalDP(size, cost, IntervalDP.Optimization.AUTO);
+            assertEquals(new IntervalDP(size, cost, IntervalDP.Optimization.CUBIC).solve(), auto.solve());
+            assertFalse(auto.usedKnuth());
+        }
+    }
+
+    // the splits should add up to the answer
+    @Test
+    public void splitsAddUpTest() {
+        long[] terrain = {0, 3, 4, 9, 10, 16, 18, 25};
+        IntervalDP.IntervalCost cost = (l, r) -> (terrain[r] - terrain[l]) * (terrain[r] - terrain[l]);
+        IntervalDP intervalDP = new IntervalDP(terrain.length, cost, IntervalDP.Optimization.AUTO);
+        assertEquals(intervalDP.solve(), addUpSplits(intervalDP, cost, 0, terrain.length - 1));
+    }
+
+    @Test
+    public void badArgumentsTest() {
+        assertThrows(IllegalArgumentException.class, () -> new IntervalDP(1, (l, r) -> 0, IntervalDP.Optimization.AUTO));
+        assertThrows(IllegalArgumentException.class, () -> new IntervalDP(5, null, IntervalDP.Optimization.AUTO));
+        assertThrows(IllegalArgumentException.class, () -> new IntervalDP(5, (l, r) -> 0, null));
+        IntervalDP intervalDP = new IntervalDP(5, (l, r) -> 0, IntervalDP.Optimization.AUTO);
+        assertThrows(IllegalArgumentException.class, () -> intervalDP.getSplit(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> intervalDP.getSplit(2, 5));
+    }
+
+    private long addUpSplits(IntervalDP intervalDP, IntervalDP.IntervalCost cost, int leftEnd, int rightEnd) {
+        if (rightEnd - leftEnd < 2) {
+            return 0;
+        }
+        int split = intervalDP.getSplit(leftEnd, rightEnd);
+        return cost.cost(leftEnd, rightEnd) + addUpSplits(intervalDP, cost, leftEnd, split)
+                + addUpSplits(intervalDP, cost, split, rightEnd);
+    }
+}
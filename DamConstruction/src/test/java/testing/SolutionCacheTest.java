@@ -0,0 +1,142 @@
+package testing;
+
+import edu.yu.da.DamConstruction;
+import edu.yu.da.SolutionCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SolutionCacheTest {
+
+    // the number of slots in a set, which has to match SolutionCache.WAYS
+    private static final int WAYS = 8;
+
+    @TempDir
+    Path directory;
+
+    // the answers should be right whether they came from the cache or not
+    @Test
+    public void cachedAnswersTest() throws IOException {
+        try (SolutionCache cache = new SolutionCache(directory, 100, true)) {
+            DamConstruction damRegulator = new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 20);
+            assertEquals(51, damRegulator.minimumCost(cache));
+            assertEquals(51, new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 20).minimumCost(cache));
+            int[] sequence = new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 20).optimalEvaluationSequence(cache);
+            assertEquals(51, damRegulator.cost(sequence));
+            // a different river end is a different river
+            assertEquals(new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 30).solve(),
+                    new DamConstruction(new int[]{6, 7, 8, 10, 13, 15}, 30).minimumCost(cache));
+        }
+    }
+
+    // after closing and opening it again, the sequence should come out of the file
+    // to make sure it isn't just solved again, I swap in a different order of the dams, which the cache can't know
+    @Test
+    public void persistsBetweenRunsTest() throws IOException {
+        int[] dams = {1, 2, 3};
+        try (SolutionCache cache = new SolutionCache(directory, 100, true)) {
+            assertEquals(8, new DamConstruction(dams, 4).minimumCost(cache));
+        }
+        Path sequenceFile = sequenceFiles().iterator().next();
+        writeSequence(sequenceFile, new int[]{3, 2, 1});
+        try (SolutionCache cache = new SolutionCache(directory, 100, true)) {
+            assertArrayEquals(new int[]{3, 2, 1}, new DamConstruction(dams, 4).optimalEvaluationSequence(cache));
+            assertEquals(8, new DamConstruction(dams, 4).minimumCost(cache));
+        }
+        // a cache with a different capacity starts over
+        try (SolutionCache cache = new SolutionCache(directory, 1000, true)) {
+            assertArrayEquals(new int[]{2, 1, 3}, new DamConstruction(dams, 4).optimalEvaluationSequence(cache));
+        }
+    }
+
+    // a sequence file that isn't one int per dam, like one cut short by a crash, is a miss, and gets solved again
+    @Test
+    public void truncatedSequenceTest() throws IOException {
+        int[] dams = {1, 2, 3};
+        try (SolutionCache cache = new SolutionCache(directory, 100, true)) {
+            assertEquals(8, new DamConstruction(dams, 4).minimumCost(cache));
+        }
+        Path sequenceFile = sequenceFiles().iterator().next();
+        writeSequence(sequenceFile, new int[]{3, 2});
+        try (SolutionCache cache = new SolutionCache(directory, 100, true)) {
+            assertArrayEquals(new int[]{2, 1, 3}, new DamConstruction(dams, 4).optimalEvaluationSequence(cache));
+        }
+        assertEquals(dams.length * Integer.BYTES, Files.size(sequenceFile));
+        writeSequence(sequenceFile, new int[]{3, 2, 1, 3});
+        try (SolutionCache cache = new SolutionCache(directory, 100, true)) {
+            assertArrayEquals(new int[]{2, 1, 3}, new DamConstruction(dams, 4).optimalEvaluationSequence(cache));
+        }
+    }
+
+    // with one set of 8 slots, the 9th river evicts the one used longest ago
+    @Test
+    public void leastRecentlyUsedEvictionTest() throws IOException {
+        try (SolutionCache cache = new SolutionCache(directory, WAYS, true)) {
+            Path[] files = new Path[WAYS + 1];
+            for (int river = 0; river < files.length; river++) {
+                if (river == files.length - 1) {
+                    // use the first river again, so the second one is now the oldest
+                    new DamConstruction(new int[]{1, 2}, 10).minimumCost(cache);
+                }
+                Set<Path> before = sequenceFiles();
+                new DamConstruction(new int[]{1, 2}, 10 + river).minimumCost(cache);
+                Set<Path> after = sequenceFiles();
+                after.removeAll(before);
+                files[river] = after.iterator().next();
+            }
+            Set<Path> left = sequenceFiles();
+            assertEquals(WAYS, left.size());
+            assertTrue(left.contains(files[0]));
+            assertFalse(left.contains(files[1]));
+        }
+    }
+
+    // without sequences, only the cost is kept
+    @Test
+    public void costOnlyTest() throws IOException {
+        try (SolutionCache cache = new SolutionCache(directory, 100, false)) {
+            DamConstruction damRegulator = new DamConstruction(new int[]{1, 2, 3}, 5);
+            assertEquals(10, damRegulator.minimumCost(cache));
+            assertEquals(10, damRegulator.cost(damRegulator.optimalEvaluationSequence(cache)));
+            assertEquals(0, sequenceFiles().size());
+        }
+    }
+
+    @Test
+    public void badCacheTest() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new SolutionCache(null, 100, true));
+        assertThrows(IllegalArgumentException.class, () -> new SolutionCache(directory, 0, true));
+        DamConstruction damRegulator = new DamConstruction(new int[]{1}, 4);
+        assertThrows(IllegalArgumentException.class, () -> damRegulator.minimumCost((SolutionCache) null));
+        SolutionCache cache = new SolutionCache(directory, 100, true);
+        cache.close();
+        assertThrows(IllegalStateException.class, () -> damRegulator.minimumCost(cache));
+    }
+
+    private Set<Path> sequenceFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".sequence")).collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+
+    private void writeSequence(Path file, int[] sequence) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(sequence.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asIntBuffer().put(sequence);
+        Files.write(file, bytes.array());
+    }
+}
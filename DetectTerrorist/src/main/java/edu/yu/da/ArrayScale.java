@@ -0,0 +1,37 @@
+package edu.yu.da;
+
+/**
+ * The original scale, which adds up the range every time it is asked to weigh it
+ * No setup cost, but each weighing is O(n) in the size of the range
+ */
+class ArrayScale implements Scale {
+
+    private final int[] passengers;
+
+    ArrayScale(int[] passengers) {
+        this.passengers = passengers;
+    }
+
+    @Override
+    public long weigh(long leftPointer, long rightPointer) {
+        // the indices are only longs for the sake of MappedScale, an array never needs more than an int
+        return weigh(passengers, (int) leftPointer, (int) rightPointer);
+    }
+
+    /**
+     * Weighs a range of the array without needing a Scale object, for the allocation-free search
+     * @param passengers the manifest
+     * @param leftPointer the first index of the range being weighed
+     * @param rightPointer the last index of the range being weighed
+     * @return the total weight of all passengers from leftPointer to rightPointer, inclusive
+     */
+    static long weigh(int[] passengers, int leftPointer, int rightPointer) {
+        // a plain counted loop, rather than a stream, so the JIT can unroll and vectorize it
+        // and the total is a long, because half of a big manifest can easily weigh more than an int can hold
+        long weight = 0;
+        for (int i = leftPointer; i <= rightPointer; i++) {
+            weight += passengers[i];
+        }
+        return weight;
+    }
+}
@@ -1,6 +1,13 @@
 package edu.yu.da;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 /** Defines the API for specifying and solving the DetectTerrorist problem (see
  * the requirements document).
@@ -12,7 +19,19 @@ import java.util.Arrays;
  */
 public class DetectTerrorist {
 
+    /**
+     * How each weighing divides up the passengers still under suspicion
+     * HALVES weighs one half against the other, like binary search, so it takes about lgn weighings
+     * THIRDS weighs one third against another and sets the last third aside, which uses all three
+     * results of the balance (left lighter, right lighter, or even), so it takes about log3(n) weighings
+     */
+    public enum SplitStrategy {
+        HALVES, THIRDS
+    }
+
     private final int[] passengers;
+    private final Scale scale;
+    private final WeighingCount weighingCount;
     private final int terrorist;
 
     /** Constructor: represents passengers to be detected as an array in which
@@ -25,13 +44,37 @@ public class DetectTerrorist {
      * terrorist.
      */
     public DetectTerrorist(final int[] passengers) {
+        this(passengers, false);
+    }
+
+    /**
+     * @param passengers an array of passenger weights, with the same requirements as the public constructor
+     * @param usePrefixSums true to build the index of running totals for the searches after this one
+     */
+    private DetectTerrorist(final int[] passengers, boolean usePrefixSums) {
         this.passengers = passengers; // so I don't have to pass it as a parameter everywhere
         // first, let's clean the array
         cleanPassengers();
+        Scale plainScale = new ArrayScale(passengers);
+        weighingCount = new WeighingCount();
         // we call the recursive method from the constructor
-        terrorist = findTerrorist(0, passengers.length - 1);
+        // its own search adds up n + n/2 + n/4... passengers, which is O(n) just like building the index,
+        // so it can use the plain scale, and only the searches afterwards get the index
+        terrorist = (int) findTerrorist(plainScale, weighingCount, 0, passengers.length - 1);
         // I am making it a return to avoid side effects
-    }   // constructor
+        scale = usePrefixSums ? new PrefixSumScale(passengers) : plainScale;
+    }
+
+    /**
+     * Like the constructor, but first spends O(n) building an index of the running total of the weights,
+     * so that each weighing afterwards is O(1) instead of summing both subsets
+     * Worth it when the manifest will be queried again with getTerrorist(leftPointer, rightPointer)
+     * @param passengers an array of passenger weights, with the same requirements as the constructor
+     * @return a DetectTerrorist that has already found the terrorist in passengers
+     */
+    public static DetectTerrorist withPrefixSums(final int[] passengers) {
+        return new DetectTerrorist(passengers, true);
+    }
 
     /**
      * Checks that the input is valid
@@ -47,14 +90,317 @@ public class DetectTerrorist {
         }
     }
 
+    /**
+     * Screens many manifests at once, spread over the cores of the common ForkJoinPool
+     * No DetectTerrorist is created for any of them, we just run the allocation-free search directly
+     * @param manifests each of which is an array of passenger weights, with the same requirements as the
+     *                  constructor's parameter
+     * @return an array whose ith element is the index of the terrorist in manifests[i]
+     */
+    public static int[] findTerrorists(final int[][] manifests) {
+        if (manifests == null) {
+            throw new IllegalArgumentException("manifests is null");
+        }
+        for (int i = 0; i < manifests.length; i++) {
+            if (manifests[i] == null) {
+                throw new IllegalArgumentException("manifest " + i + " is null");
+            } else if (manifests[i].length == 0) {
+                throw new IllegalArgumentException("manifest " + i + " is empty");
+            }
+        }
+        int[] terrorists = new int[manifests.length];
+        ForkJoinPool.commonPool().invoke(new ScreeningTask(0, manifests.length, manifest ->
+                terrorists[manifest] = findTerrorist(manifests[manifest], 0, manifests[manifest].length - 1)));
+        return terrorists;
+    }
+
+    /**
+     * Like findTerrorists(int[][]), but for manifests that were packed one after another into a single array,
+     * which saves allocating an array per manifest
+     * @param passengers the weights of every passenger of every manifest
+     * @param offsets where each manifest starts: manifest i is passengers[offsets[i]]...passengers[offsets[i + 1] - 1],
+     *                so there is one more offset than there are manifests. Offsets must be strictly increasing,
+     *                so that no manifest is empty, and must stay within passengers
+     * @return an array whose ith element is the index of the terrorist within manifest i, so that
+     *         offsets[i] + that index is its index in passengers
+     */
+    public static int[] findTerrorists(final int[] passengers, final int[] offsets) {
+        if (passengers == null) {
+            throw new IllegalArgumentException("passengers is null");
+        }
+        if (offsets == null || offsets.length == 0) {
+            throw new IllegalArgumentException("offsets must have at least one element");
+        }
+        if (offsets[0] < 0 || offsets[offsets.length - 1] > passengers.length) {
+            throw new IllegalArgumentException("offsets must be within the " + passengers.length + " passengers");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] <= offsets[i - 1]) {
+                throw new IllegalArgumentException("manifest " + (i - 1) + " is empty");
+            }
+        }
+        int[] terrorists = new int[offsets.length - 1];
+        // we search each manifest where it sits in the big array
+        ForkJoinPool.commonPool().invoke(new ScreeningTask(0, terrorists.length, manifest ->
+                terrorists[manifest] = findTerrorist(passengers, offsets[manifest], offsets[manifest + 1] - 1)
+                        - offsets[manifest]));
+        return terrorists;
+    }
+
+    /**
+     * Finds the terrorist the same way the constructor does, but with a loop instead of recursion, and without
+     * allocating anything: no DetectTerrorist, no Scale, and no WeighingCount
+     * For latency-sensitive callers who only want the answer, and don't want to leave any garbage behind
+     * @param passengers an array of passenger weights, with the same requirements as the constructor
+     * @return the index of the terrorist
+     */
+    public static int findTerrorist(final int[] passengers) {
+        if (passengers == null) {
+            throw new IllegalArgumentException("passengers is null");
+        } else if (passengers.length == 0) {
+            throw new IllegalArgumentException("passengers is empty");
+        }
+        return findTerrorist(passengers, 0, passengers.length - 1);
+    }
+
+    /**
+     * The iterative version of findTerrorist(Scale, WeighingCount, long, long), which weighs the array directly
+     * Instead of recursing on the side with the terrorist, we just move the pointers there
+     * @param passengers the manifest
+     * @param leftPointer the leftmost part of the array where the terrorist might be
+     * @param rightPointer the rightmost part of the array where the terrorist might be
+     * @return the index of the terrorist in the array
+     */
+    private static int findTerrorist(int[] passengers, int leftPointer, int rightPointer) {
+        while (leftPointer < rightPointer) {
+            // the difference, rather than the sum, so that pointers near Integer.MAX_VALUE can't overflow
+            if ((rightPointer - leftPointer) % 2 == 1) {
+                // an even number of passengers, so we split them down the middle
+                int middlePointer = (leftPointer + rightPointer) >>> 1;
+                if (ArrayScale.weigh(passengers, leftPointer, middlePointer)
+                        < ArrayScale.weigh(passengers, middlePointer + 1, rightPointer)) {
+                    rightPointer = middlePointer;
+                } else {
+                    leftPointer = middlePointer + 1;
+                }
+            } else {
+                // an odd number, so we leave the last one out, and if the halves balance, it's him
+                int middlePointer = ((leftPointer + rightPointer) >>> 1) - 1;
+                long leftWeight = ArrayScale.weigh(passengers, leftPointer, middlePointer);
+                long rightWeight = ArrayScale.weigh(passengers, middlePointer + 1, rightPointer - 1);
+                if (leftWeight < rightWeight) {
+                    rightPointer = middlePointer;
+                } else if (leftWeight > rightWeight) {
+                    leftPointer = middlePointer + 1;
+                    rightPointer--;
+                } else {
+                    return rightPointer;
+                }
+            }
+        }
+        return leftPointer;
+    }
+
+    /**
+     * Screens a manifest that is too big to load as an int[], reading it straight out of a file of weights
+     * The file is memory-mapped rather than read, so only the pages each weighing needs are brought into memory,
+     * and the manifest can have more than Integer.MAX_VALUE passengers
+     * @param manifest a file of little-endian 32-bit passenger weights, one after another, with the same
+     *                 requirements as the constructor's parameter
+     * @return the index of the terrorist in the file, counting in passengers, not bytes
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public static long findTerrorist(final Path manifest) throws IOException {
+        return findTerrorist(manifest, SplitStrategy.HALVES, new WeighingCount());
+    }
+
+    /**
+     * Like findTerrorist(Path), but lets the client choose how the passengers are split up, and find out what
+     * the search cost
+     * @param manifest a file of little-endian 32-bit passenger weights, as in findTerrorist(Path)
+     * @param strategy how each weighing divides up the passengers
+     * @param count that the weighings done by this search are added to
+     * @return the index of the terrorist in the file, counting in passengers, not bytes
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public static long findTerrorist(final Path manifest, final SplitStrategy strategy, final WeighingCount count)
+            throws IOException {
+        if (manifest == null) {
+            throw new IllegalArgumentException("manifest is null");
+        }
+        cleanSearchOptions(strategy, count);
+        try (FileChannel channel = FileChannel.open(manifest, StandardOpenOption.READ)) {
+            MappedScale scale = new MappedScale(channel);
+            // the mappings stay valid after the channel is closed, so we don't need to search inside the try
+            return findTerrorist(scale, strategy, count, 0, scale.size() - 1);
+        }
+    }
+
+    /**
+     * Finds the terrorist without keeping a DetectTerrorist around, but lets the client choose how the
+     * passengers are split up, and find out what the search cost
+     * @param passengers an array of passenger weights, with the same requirements as the constructor
+     * @param strategy how each weighing divides up the passengers
+     * @param count that the weighings done by this search are added to
+     * @return the index of the terrorist
+     */
+    public static int findTerrorist(final int[] passengers, final SplitStrategy strategy, final WeighingCount count) {
+        if (passengers == null) {
+            throw new IllegalArgumentException("passengers is null");
+        } else if (passengers.length == 0) {
+            throw new IllegalArgumentException("passengers is empty");
+        }
+        cleanSearchOptions(strategy, count);
+        return (int) findTerrorist(new ArrayScale(passengers), strategy, count, 0, passengers.length - 1);
+    }
+
+    private static void cleanSearchOptions(SplitStrategy strategy, WeighingCount count) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy is null");
+        }
+        if (count == null) {
+            throw new IllegalArgumentException("count is null");
+        }
+    }
+
+    /**
+     * Finds every terrorist in a manifest that might have several of them, up to maxTerrorists
+     * Any group of maxTerrorists + 1 passengers has an innocent one in it, so the heaviest of them gives the
+     * innocent weight. After that, a range of passengers with a terrorist in it weighs less than it would if
+     * they were all innocent, and we only ever split ranges that come up short, so the search takes
+     * O(k lg(n/k)) weighings, where k is the number of terrorists
+     * Each weighing is O(1), because this builds prefix sums first
+     * @param passengers an array of passenger weights, indexed 0...n-1. All innocent passengers have the same
+     *                   weight, and the terrorists each weigh less than that, but not necessarily the same
+     * @param maxTerrorists the most terrorists there can be among passengers, must be positive. If there are
+     *                      really more than that, we can't trust the innocent weight, and so the answer is undefined
+     * @param count that the weighings done by this search are added to
+     * @return the indices of the terrorists, in ascending order, which is empty if all the passengers weigh
+     *         the same
+     */
+    public static int[] findAllTerrorists(final int[] passengers, final int maxTerrorists, final WeighingCount count) {
+        if (passengers == null) {
+            throw new IllegalArgumentException("passengers is null");
+        } else if (passengers.length == 0) {
+            throw new IllegalArgumentException("passengers is empty");
+        }
+        if (maxTerrorists < 1) {
+            throw new IllegalArgumentException("maxTerrorists must be positive, you gave " + maxTerrorists);
+        }
+        if (count == null) {
+            throw new IllegalArgumentException("count is null");
+        }
+        Scale scale = new PrefixSumScale(passengers);
+        // first we need the innocent weight, which is the heaviest of the first maxTerrorists + 1 passengers
+        long innocentWeight = scale.weigh(0, 0);
+        for (int i = 1; i <= maxTerrorists && i < passengers.length; i++) {
+            count.record(2); // weighing passenger i against the heaviest so far
+            innocentWeight = Math.max(innocentWeight, scale.weigh(i, i));
+        }
+        int[] terrorists = new int[Math.min(maxTerrorists, passengers.length)];
+        count.record(passengers.length);
+        long shortfall = innocentWeight * passengers.length - scale.weigh(0, passengers.length - 1);
+        int found = shortfall > 0 ? findAllTerrorists(scale, count, innocentWeight, terrorists, 0,
+                0, passengers.length - 1, shortfall) : 0;
+        return Arrays.copyOf(terrorists, found);
+    }
+
+    /**
+     * A recursive method to find every terrorist in a range we already know has at least one
+     * We only weigh the left half, since we know how much the whole range is short, and so the right half
+     * must be short whatever is left over
+     * @param scale that the passengers are weighed on
+     * @param count that each weighing is added to
+     * @param innocentWeight what each innocent passenger weighs
+     * @param terrorists the array where the terrorists' indices are collected
+     * @param found how many terrorists have been put in the array so far
+     * @param leftPointer the first index of the range
+     * @param rightPointer the last index of the range
+     * @param shortfall how much less than innocentWeight * its length the range weighs, which is positive
+     * @return how many terrorists have been put in the array now
+     */
+    private static int findAllTerrorists(Scale scale, WeighingCount count, long innocentWeight, int[] terrorists,
+                                         int found, long leftPointer, long rightPointer, long shortfall) {
+        if (leftPointer == rightPointer) {
+            // the base case, a single passenger who weighs too little
+            terrorists[found] = (int) leftPointer;
+            return found + 1;
+        }
+        long middlePointer = (leftPointer + rightPointer) / 2; // the last index of the left half
+        count.record(middlePointer - leftPointer + 1);
+        long leftShortfall = innocentWeight * (middlePointer - leftPointer + 1) - scale.weigh(leftPointer, middlePointer);
+        if (leftShortfall > 0) {
+            found = findAllTerrorists(scale, count, innocentWeight, terrorists, found,
+                    leftPointer, middlePointer, leftShortfall);
+        }
+        if (shortfall > leftShortfall && found < terrorists.length) {
+            found = findAllTerrorists(scale, count, innocentWeight, terrorists, found,
+                    middlePointer + 1, rightPointer, shortfall - leftShortfall);
+        }
+        return found;
+    }
+
+    /**
+     * Splits a batch of manifests in half until each half is small enough to be worth a thread, and then
+     * screens those manifests one after another
+     */
+    private static class ScreeningTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        // the manifests are small, so a task that screens fewer than this is more overhead than it's worth
+        private static final int MANIFESTS_PER_TASK = 64;
+        private final int first;
+        private final int last; // exclusive
+        private final IntConsumer screener; // screens the manifest at the index it is given, and stores the answer
+
+        private ScreeningTask(int first, int last, IntConsumer screener) {
+            this.first = first;
+            this.last = last;
+            this.screener = screener;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first <= MANIFESTS_PER_TASK) {
+                for (int manifest = first; manifest < last; manifest++) {
+                    screener.accept(manifest);
+                }
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new ScreeningTask(first, middle, screener), new ScreeningTask(middle, last, screener));
+        }
+    }
+
+    /**
+     * Finds the terrorist between the pointers, splitting the passengers up however the strategy says
+     * @param scale that the passengers are weighed on
+     * @param strategy how each weighing divides up the passengers
+     * @param count that each weighing is added to
+     * @param leftPointer the leftmost part of the array where the terrorist might be
+     * @param rightPointer the rightmost part of the array where the terrorist might be
+     * @return the index of the terrorist in the array
+     */
+    private static long findTerrorist(Scale scale, SplitStrategy strategy, WeighingCount count,
+                                      long leftPointer, long rightPointer) {
+        switch (strategy) {
+            case THIRDS:
+                return findTerroristInThirds(scale, count, leftPointer, rightPointer);
+            case HALVES:
+            default:
+                return findTerrorist(scale, count, leftPointer, rightPointer);
+        }
+    }
+
     /**
      * A recursive method to find the terrorist
      * Called where leftPointer = 0 and rightPointer = length - 1
+     * @param scale that the passengers are weighed on
+     * @param count that each weighing is added to
      * @param leftPointer the leftmost part of the array where the terrorist might be
      * @param rightPointer the rightmost part of the array where the terrorist might be
      * @return the index of the terrorist in the array
      */
-    private int findTerrorist(int leftPointer, int rightPointer) {
+    private static long findTerrorist(Scale scale, WeighingCount count, long leftPointer, long rightPointer) {
         if (leftPointer == rightPointer) {
             // the base case, where the pointers intersect, we have our terrorist
             return leftPointer; // the terrorist index
@@ -62,32 +408,65 @@ public class DetectTerrorist {
         if ((leftPointer + rightPointer) % 2 == 1) {
             // this means that there is an even number of passengers between the pointers
             // so we can just divide the pointers in half without worrying about it
-            int middlePointer = (leftPointer + rightPointer) / 2; // the last index of the first subset
+            long middlePointer = (leftPointer + rightPointer) / 2; // the last index of the first subset
             // the first index of the second subset is equal to middlePointer + 1
             // I calculate it outside the method so I can use it again
-            int comparison = compareSubsets(leftPointer, middlePointer, rightPointer);
+            int comparison = compareSubsets(scale, count, leftPointer, middlePointer, rightPointer);
             assert comparison != 0; // because if so, it means that the terrorist doesn't exist
             // we recursively call the algorithm on the smaller side, because that side has the terrorist
-            return comparison < 0? findTerrorist(leftPointer, middlePointer)
-                    : findTerrorist(middlePointer + 1, rightPointer);
+            return comparison < 0? findTerrorist(scale, count, leftPointer, middlePointer)
+                    : findTerrorist(scale, count, middlePointer + 1, rightPointer);
         } else { // we have the more complicated case of an odd number of elements
             // so we chop off the end and compare the two halves
             // if they are equal, we instead return the last element of the array, which made it odd
-            int middlePointer = (leftPointer + rightPointer) / 2 - 1; // -1, because the subsets are shifted one left
-            int comparison = compareSubsets(leftPointer, middlePointer, rightPointer - 1);
+            long middlePointer = (leftPointer + rightPointer) / 2 - 1; // -1, because the subsets are shifted one left
+            int comparison = compareSubsets(scale, count, leftPointer, middlePointer, rightPointer - 1);
             if (comparison < 0) {
-                return findTerrorist(leftPointer, middlePointer);
+                return findTerrorist(scale, count, leftPointer, middlePointer);
             } else if (comparison > 0) {
-                return findTerrorist(middlePointer + 1, rightPointer - 1);
+                return findTerrorist(scale, count, middlePointer + 1, rightPointer - 1);
             } else {
                 return rightPointer; // because the terrorist is on the right
             }
         }
     }
 
+    /**
+     * A recursive method to find the terrorist, which weighs two equal piles against each other and sets
+     * the rest aside
+     * If one pile is lighter, the terrorist is in it, and if they balance, he is in the pile set aside
+     * Each pile is about a third of the passengers, so every weighing gets rid of two thirds of them
+     * Called where leftPointer = 0 and rightPointer = length - 1
+     * @param scale that the passengers are weighed on
+     * @param count that each weighing is added to
+     * @param leftPointer the leftmost part of the array where the terrorist might be
+     * @param rightPointer the rightmost part of the array where the terrorist might be
+     * @return the index of the terrorist in the array
+     */
+    private static long findTerroristInThirds(Scale scale, WeighingCount count, long leftPointer, long rightPointer) {
+        if (leftPointer == rightPointer) {
+            return leftPointer; // the base case, only one suspect left
+        }
+        // each pile gets a third, rounded up, which still leaves room for two piles when there are only 2
+        // so the pile set aside is never bigger than the ones we weigh
+        long pileSize = (rightPointer - leftPointer + 3) / 3;
+        long middlePointer = leftPointer + pileSize - 1; // the last index of the first pile
+        long asidePointer = middlePointer + pileSize + 1; // the first index set aside
+        int comparison = compareSubsets(scale, count, leftPointer, middlePointer, asidePointer - 1);
+        if (comparison < 0) {
+            return findTerroristInThirds(scale, count, leftPointer, middlePointer);
+        } else if (comparison > 0) {
+            return findTerroristInThirds(scale, count, middlePointer + 1, asidePointer - 1);
+        }
+        assert asidePointer <= rightPointer; // because if not, the terrorist doesn't exist
+        return findTerroristInThirds(scale, count, asidePointer, rightPointer);
+    }
+
     /**
      * Weighs two equal-length subsets of the array. O(n), but don't tell that to Mossad
-     * It might be more efficient, because I do the O(n) work in stream().parallel()
+     * Unless we built prefix sums, in which case it is O(1)
+     * @param scale that the passengers are weighed on
+     * @param count that this weighing is added to
      * @param leftPointer the first index of the first subset
      * @param middlePointer the last index of the first subset
      * @param rightPointer the last index of the second subset
@@ -95,11 +474,13 @@ public class DetectTerrorist {
      * @return a negative number if the left is smaller, a positive number if the right is smaller,
      *         and 0 if they are equal
      */
-    private int compareSubsets(int leftPointer, int middlePointer, int rightPointer) {
-        // I sum up the weights of each subarray
-        int leftWeight = Arrays.stream(passengers, leftPointer, middlePointer + 1).sum();
-        int rightWeight = Arrays.stream(passengers, middlePointer + 1, rightPointer + 1).sum();
-        return leftWeight - rightWeight;
+    private static int compareSubsets(Scale scale, WeighingCount count,
+                                      long leftPointer, long middlePointer, long rightPointer) {
+        count.record(rightPointer - leftPointer + 1);
+        // I weigh each subarray on whichever scale we were given
+        long leftWeight = scale.weigh(leftPointer, middlePointer);
+        long rightWeight = scale.weigh(middlePointer + 1, rightPointer);
+        return Long.compare(leftWeight, rightWeight);
     }
 
     /** Returns the index of the passenger who has been determined to be a
@@ -111,6 +492,33 @@ public class DetectTerrorist {
         return terrorist;
     }
 
+    /** Searches again, but only among passengers leftPointer...rightPointer, for when a slice of the
+     * manifest has to be screened on its own. The slice must contain exactly one terrorist.
+     * O(lgn) weighings, so O(lgn) in total if this was created with withPrefixSums(), O(n) otherwise.
+     *
+     * @param leftPointer the first index of the slice
+     * @param rightPointer the last index of the slice, inclusive
+     * @return the index of the terrorist element within the whole manifest
+     */
+    public int getTerrorist(final int leftPointer, final int rightPointer) {
+        if (leftPointer < 0 || rightPointer >= passengers.length) {
+            throw new IllegalArgumentException("Slice " + leftPointer + "..." + rightPointer
+                    + " is outside the " + passengers.length + " passengers");
+        }
+        if (leftPointer > rightPointer) {
+            throw new IllegalArgumentException("Slice " + leftPointer + "..." + rightPointer + " is empty");
+        }
+        return (int) findTerrorist(scale, new WeighingCount(), leftPointer, rightPointer);
+    }
+
+    /** Returns what it cost the constructor to find the terrorist
+     *
+     * @return the number of weighings the constructor did, and how many passengers they weighed.
+     */
+    public WeighingCount getWeighingCount() {
+        return weighingCount;
+    }
+
     // the algorithm is obvious and trivial, being essentially binary search
     // only it is n, because we have to compute the weights of each half at each stage for our compareTo
     // we drop half of the array at each stage
@@ -0,0 +1,67 @@
+package edu.yu.da;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A scale that weighs passengers straight out of a memory-mapped file of little-endian ints
+ * A single mapping can't be bigger than 2GB, so the file is mapped in chunks, and a weighing that
+ * crosses a chunk boundary adds up its part of each chunk
+ */
+class MappedScale implements Scale {
+
+    // 2^28 ints is 1GB per mapping, comfortably under the limit, and a power of 2 so we can shift instead of divide
+    private static final int CHUNK_SHIFT = 28;
+    private static final int INTS_PER_CHUNK = 1 << CHUNK_SHIFT;
+
+    private final IntBuffer[] chunks;
+    private final long size;
+
+    /**
+     * Maps the whole file, but reads none of it yet
+     * @param channel open for reading, which can be closed once this is constructed
+     * @throws IOException if the file can't be mapped
+     */
+    MappedScale(FileChannel channel) throws IOException {
+        long bytes = channel.size();
+        if (bytes == 0) {
+            throw new IllegalArgumentException("passengers is empty");
+        }
+        if (bytes % Integer.BYTES != 0) {
+            throw new IllegalArgumentException("A file of " + bytes + " bytes can't be made of 4-byte weights");
+        }
+        size = bytes / Integer.BYTES;
+        chunks = new IntBuffer[(int) ((size + INTS_PER_CHUNK - 1) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long firstInt = (long) i << CHUNK_SHIFT;
+            long ints = Math.min(INTS_PER_CHUNK, size - firstInt);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, firstInt * Integer.BYTES, ints * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+    }
+
+    /**
+     * @return the number of passengers in the file
+     */
+    long size() {
+        return size;
+    }
+
+    @Override
+    public long weigh(long leftPointer, long rightPointer) {
+        long weight = 0;
+        // we go one chunk at a time, so that inside a chunk we can use int indices
+        for (int chunk = (int) (leftPointer >>> CHUNK_SHIFT); chunk <= (int) (rightPointer >>> CHUNK_SHIFT); chunk++) {
+            long chunkStart = (long) chunk << CHUNK_SHIFT;
+            int first = (int) (Math.max(leftPointer, chunkStart) - chunkStart);
+            int last = (int) (Math.min(rightPointer, chunkStart + INTS_PER_CHUNK - 1) - chunkStart);
+            IntBuffer weights = chunks[chunk];
+            for (int i = first; i <= last; i++) {
+                weight += weights.get(i);
+            }
+        }
+        return weight;
+    }
+}
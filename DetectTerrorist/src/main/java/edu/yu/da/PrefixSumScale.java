@@ -0,0 +1,24 @@
+package edu.yu.da;
+
+/**
+ * A scale that pays O(n) once to record the running total of the weights, so that every weighing
+ * afterwards is a single subtraction
+ * The totals are longs, so even a long manifest of heavy passengers can't overflow them
+ */
+class PrefixSumScale implements Scale {
+
+    // prefixSums[i] is the total weight of passengers 0...i-1, so prefixSums[0] is 0
+    private final long[] prefixSums;
+
+    PrefixSumScale(int[] passengers) {
+        prefixSums = new long[passengers.length + 1];
+        for (int i = 0; i < passengers.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + passengers[i];
+        }
+    }
+
+    @Override
+    public long weigh(long leftPointer, long rightPointer) {
+        return prefixSums[(int) rightPointer + 1] - prefixSums[(int) leftPointer];
+    }
+}
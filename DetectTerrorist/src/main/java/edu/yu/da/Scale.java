@@ -0,0 +1,17 @@
+package edu.yu.da;
+
+/**
+ * The balance used to weigh passengers' tefillin bags
+ * DetectTerrorist only ever asks it for the total weight of a contiguous range of passengers,
+ * so different scales can trade setup cost against the cost of each weighing
+ */
+interface Scale {
+
+    /**
+     * @param leftPointer the first index of the range being weighed
+     * @param rightPointer the last index of the range being weighed
+     * leftPointer <= rightPointer
+     * @return the total weight of all passengers from leftPointer to rightPointer, inclusive
+     */
+    long weigh(long leftPointer, long rightPointer);
+}
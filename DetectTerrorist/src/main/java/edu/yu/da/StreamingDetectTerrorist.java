@@ -0,0 +1,121 @@
+package edu.yu.da;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Detects the terrorist in passengers as they arrive, instead of waiting for the whole manifest
+ * We can't weigh halves of a manifest we don't have yet, but we don't need to: once two passengers
+ * weigh the same, that is the weight of an innocent passenger, and the terrorist is the first one lighter
+ * than that. So it only remembers the first weight and how many passengers it has seen, O(1) memory,
+ * and stops as soon as the terrorist shows up.
+ * Clients can feed it one weight at a time with accept(), or hand it a whole feed with findTerrorist()
+ */
+public class StreamingDetectTerrorist {
+
+    private long passengersSeen;
+    private int firstWeight;
+    private long terrorist = -1; // -1 until he is found
+
+    /**
+     * Weighs the next passenger in the feed
+     * Once the terrorist has been found, there is no need to weigh anyone else, so later weights are ignored
+     * @param weight of the next passenger
+     * @return true if the terrorist has been found, false if we have to keep weighing
+     */
+    public boolean accept(final int weight) {
+        if (terrorist >= 0) {
+            return true;
+        }
+        if (passengersSeen == 0) {
+            firstWeight = weight; // we don't know yet if he is innocent
+        } else if (passengersSeen == 1 && weight != firstWeight) {
+            // the first two don't match, so whoever is lighter is the terrorist
+            terrorist = weight < firstWeight? 1 : 0;
+        } else if (weight < firstWeight) {
+            terrorist = passengersSeen;
+        } else if (weight > firstWeight) {
+            // the first two matched, so they were innocent, and nobody should be heavier than them
+            throw new IllegalArgumentException("Passenger " + passengersSeen + " weighs " + weight
+                    + ", more than the innocent weight of " + firstWeight);
+        }
+        passengersSeen++;
+        return terrorist >= 0;
+    }
+
+    /**
+     * @return the index of the terrorist in the feed, or -1 if he hasn't shown up yet
+     */
+    public long getTerrorist() {
+        return terrorist;
+    }
+
+    /**
+     * Called when the feed runs dry, to get the answer anyway
+     * A single passenger is the terrorist by default, just like in DetectTerrorist
+     * @return the index of the terrorist in the feed
+     */
+    public long endOfFeed() {
+        if (terrorist < 0 && passengersSeen == 1) {
+            terrorist = 0;
+        }
+        if (passengersSeen == 0) {
+            throw new IllegalArgumentException("passengers is empty");
+        } else if (terrorist < 0) {
+            throw new IllegalArgumentException("All " + passengersSeen + " passengers weigh the same, there is no terrorist");
+        }
+        return terrorist;
+    }
+
+    /**
+     * Detects the terrorist in a stream of weights, consuming only as much of it as it needs
+     * @param weights of the passengers, in the order they arrive, with the same requirements as DetectTerrorist's
+     *                constructor parameter
+     * @return the index of the terrorist in the stream
+     */
+    public static long findTerrorist(final IntStream weights) {
+        if (weights == null) {
+            throw new IllegalArgumentException("weights is null");
+        }
+        StreamingDetectTerrorist detector = new StreamingDetectTerrorist();
+        PrimitiveIterator.OfInt feed = weights.iterator(); // so that we can stop in the middle
+        while (feed.hasNext()) {
+            if (detector.accept(feed.nextInt())) {
+                return detector.getTerrorist();
+            }
+        }
+        return detector.endOfFeed();
+    }
+
+    /**
+     * Detects the terrorist in a stream of little-endian 32-bit weights, in the same format that
+     * DetectTerrorist.findTerrorist(Path) reads, and stops reading right after his weight, so a client can keep
+     * reading the rest of a live feed
+     * @param weights of the passengers, in the order they arrive. The client still has to close it.
+     * @return the index of the terrorist in the stream
+     * @throws IOException if the stream can't be read
+     */
+    public static long findTerrorist(final InputStream weights) throws IOException {
+        if (weights == null) {
+            throw new IllegalArgumentException("weights is null");
+        }
+        StreamingDetectTerrorist detector = new StreamingDetectTerrorist();
+        // not buffered, since a buffer would read past the terrorist, and take bytes the client still wants
+        // one weight at a time, into the same 4 bytes every time, so it's still constant memory
+        byte[] bytes = new byte[Integer.BYTES];
+        int bytesRead;
+        while ((bytesRead = weights.readNBytes(bytes, 0, Integer.BYTES)) > 0) {
+            if (bytesRead < Integer.BYTES) {
+                throw new IllegalArgumentException("The feed ended in the middle of passenger "
+                        + detector.passengersSeen + "'s weight");
+            }
+            int weight = (bytes[0] & 0xFF) | (bytes[1] & 0xFF) << 8 | (bytes[2] & 0xFF) << 16 | bytes[3] << 24;
+            if (detector.accept(weight)) {
+                return detector.getTerrorist();
+            }
+        }
+        return detector.endOfFeed();
+    }
+}
@@ -0,0 +1,43 @@
+package edu.yu.da;
+
+/**
+ * Keeps track of what a search for the terrorist cost
+ * Weighings are the expensive physical operation, so that is the main number,
+ * but we also count how many passengers had to be put on the scale along the way
+ */
+public class WeighingCount {
+
+    private long weighings;
+    private long passengersWeighed;
+
+    /**
+     * Records a single weighing
+     * @param passengers the total number of passengers on both sides of the balance
+     */
+    void record(long passengers) {
+        weighings++;
+        passengersWeighed += passengers;
+    }
+
+    /**
+     * @return the number of times the balance was used
+     */
+    public long getWeighings() {
+        return weighings;
+    }
+
+    /**
+     * @return the total number of passengers put on the balance, over all the weighings
+     */
+    public long getPassengersWeighed() {
+        return passengersWeighed;
+    }
+
+    @Override
+    public String toString() {
+        return "WeighingCount{" +
+                "weighings=" + weighings +
+                ", passengersWeighed=" + passengersWeighed +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import edu.yu.da.DetectTerrorist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the recursive search the constructor does with the allocation-free iterative one
+ * Unlike the BigOIt tests, this isn't run by mvn test, since the big sizes take a while:
+ * mvn -Pbenchmark test-compile exec:exec
+ * The GC profiler is always on, so that gc.alloc.rate.norm reports the bytes allocated per search
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g") // 10^8 passengers is 400MB
+public class DetectTerroristBenchmark {
+
+    @Param({"10", "1000", "100000", "10000000", "100000000"})
+    private int n;
+
+    private int[] passengers;
+
+    @Setup
+    public void setup() {
+        passengers = new int[n];
+        // the first passenger, so that every odd-length range chops off the end and has to keep going
+        // just like largeTest
+        passengers[0] = -1;
+    }
+
+    @Benchmark
+    public int recursive() {
+        return new DetectTerrorist(passengers).getTerrorist();
+    }
+
+    @Benchmark
+    public int iterative() {
+        return DetectTerrorist.findTerrorist(passengers);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(DetectTerroristBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -1,9 +1,23 @@
 package testing;
 
 import edu.yu.da.DetectTerrorist;
+import edu.yu.da.DetectTerrorist.SplitStrategy;
+import edu.yu.da.StreamingDetectTerrorist;
+import edu.yu.da.WeighingCount;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DetectTerroristTest {
 
@@ -14,6 +28,15 @@ public class DetectTerroristTest {
     private void runTest(int expected, int... passengers) {
         DetectTerrorist mossad = new DetectTerrorist(passengers);
         assertEquals(expected, mossad.getTerrorist());
+        // the prefix sums should never change the answer, only how fast we get it
+        DetectTerrorist shinBet = DetectTerrorist.withPrefixSums(passengers);
+        assertEquals(expected, shinBet.getTerrorist());
+        // and neither should weighing in thirds
+        assertEquals(expected, DetectTerrorist.findTerrorist(passengers, SplitStrategy.THIRDS, new WeighingCount()));
+        // or searching without recursion
+        assertEquals(expected, DetectTerrorist.findTerrorist(passengers));
+        // or weighing them one at a time as they arrive
+        assertEquals(expected, StreamingDetectTerrorist.findTerrorist(Arrays.stream(passengers)));
     }
 
     // I need a test that if there is a single passenger, it detects that as the terrorist
@@ -122,5 +145,153 @@ public class DetectTerroristTest {
         }
     }
 
+    // a test where the weights are so big that adding up half the manifest overflows an int
+    @Test
+    public void overflowTest() {
+        int[] passengers = new int[10];
+        Arrays.fill(passengers, Integer.MAX_VALUE);
+        passengers[6] = Integer.MAX_VALUE - 1;
+        runTest(6, passengers);
+    }
+
+    // a test that we can screen a slice of the manifest again, with or without prefix sums
+    @Test
+    public void sliceTest() {
+        int[] passengers = {2, 1, 2, 2, 2, 2, 2, 2, 2, 2};
+        DetectTerrorist mossad = DetectTerrorist.withPrefixSums(passengers);
+        assertEquals(1, mossad.getTerrorist());
+        assertEquals(1, mossad.getTerrorist(1, 1));
+        assertEquals(1, mossad.getTerrorist(0, 4));
+        assertEquals(1, new DetectTerrorist(passengers).getTerrorist(1, 9));
+    }
+
+    // a slice that goes past the end of the manifest is rejected
+    @Test
+    public void badSliceTest() {
+        DetectTerrorist mossad = new DetectTerrorist(new int[]{1, 2, 2});
+        assertThrows(IllegalArgumentException.class, ()->mossad.getTerrorist(1, 3));
+        assertThrows(IllegalArgumentException.class, ()->mossad.getTerrorist(2, 1));
+    }
+
+    // a test that screening a batch finds the same terrorists as screening one at a time
+    @Test
+    public void batchTest() {
+        int[][] manifests = new int[1000][];
+        int[] expected = new int[manifests.length];
+        for (int i = 0; i < manifests.length; i++) {
+            manifests[i] = new int[i % 37 + 1];
+            Arrays.fill(manifests[i], 5);
+            expected[i] = (i * 7) % manifests[i].length;
+            manifests[i][expected[i]] = 4;
+        }
+        assertArrayEquals(expected, DetectTerrorist.findTerrorists(manifests));
+    }
+
+    // the same, but with all the manifests packed into one array
+    @Test
+    public void flattenedBatchTest() {
+        int[] passengers = {2, 1, 2, 1, 3, 3, 3, 2, 3, 3};
+        int[] offsets = {0, 3, 4, 10};
+        assertArrayEquals(new int[]{1, 0, 3}, DetectTerrorist.findTerrorists(passengers, offsets));
+    }
+
+    // an empty manifest is caught, whether or not the batch is flattened
+    @Test
+    public void emptyManifestBatchTest() {
+        assertThrows(IllegalArgumentException.class, ()->DetectTerrorist.findTerrorists(new int[][]{{1}, {}}));
+        assertThrows(IllegalArgumentException.class,
+                ()->DetectTerrorist.findTerrorists(new int[]{1, 1, 2}, new int[]{0, 1, 1, 3}));
+        assertThrows(IllegalArgumentException.class,
+                ()->DetectTerrorist.findTerrorists(new int[]{1, 1, 2}, new int[]{0, 4}));
+    }
+
+    // a test that a manifest can be screened straight out of a file of little-endian weights
+    @Test
+    public void mappedFileTest(@TempDir Path directory) throws IOException {
+        int[] passengers = new int[1001];
+        Arrays.fill(passengers, 70);
+        for (int terrorist : new int[]{0, 500, 999, 1000}) {
+            passengers[terrorist] = 69;
+            Path manifest = writeManifest(directory, passengers);
+            assertEquals(terrorist, DetectTerrorist.findTerrorist(manifest));
+            passengers[terrorist] = 70;
+        }
+    }
+
+    // a file whose length isn't a whole number of weights is rejected
+    @Test
+    public void truncatedFileTest(@TempDir Path directory) throws IOException {
+        Path manifest = directory.resolve("truncated.bin");
+        Files.write(manifest, new byte[]{1, 0, 0, 0, 2, 0});
+        assertThrows(IllegalArgumentException.class, ()->DetectTerrorist.findTerrorist(manifest));
+    }
+
+    private Path writeManifest(Path directory, int[] passengers) throws IOException {
+        ByteBuffer weights = ByteBuffer.allocate(passengers.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        weights.asIntBuffer().put(passengers);
+        Path manifest = directory.resolve("manifest.bin");
+        Files.write(manifest, weights.array());
+        return manifest;
+    }
+
+    // a test that weighing in thirds finds the terrorist wherever he is, for every length up to 30
+    @Test
+    public void thirdsEverySlotTest() {
+        for (int length = 1; length <= 30; length++) {
+            int[] passengers = new int[length];
+            for (int terrorist = 0; terrorist < length; terrorist++) {
+                Arrays.fill(passengers, 3);
+                passengers[terrorist] = 2;
+                assertEquals(terrorist, DetectTerrorist.findTerrorist(passengers, SplitStrategy.THIRDS, new WeighingCount()));
+            }
+        }
+    }
+
+    // a test that weighing in thirds takes log3(n) weighings where halves takes lg(n)
+    @Test
+    public void weighingCountTest() {
+        int[] passengers = new int[729]; // 3^6, but between 2^9 and 2^10
+        passengers[728] = -1;
+        WeighingCount halves = new WeighingCount();
+        WeighingCount thirds = new WeighingCount();
+        assertEquals(728, DetectTerrorist.findTerrorist(passengers, SplitStrategy.HALVES, halves));
+        assertEquals(728, DetectTerrorist.findTerrorist(passengers, SplitStrategy.THIRDS, thirds));
+        assertEquals(6, thirds.getWeighings());
+        assertTrue(halves.getWeighings() <= 10);
+        // each weighing in thirds puts 2/3 of the suspects on the scale: 486 + 162 + 54 + 18 + 6 + 2
+        assertEquals(728, thirds.getPassengersWeighed());
+        // and the constructor counts its own weighings
+        assertEquals(halves.getWeighings(), new DetectTerrorist(passengers).getWeighingCount().getWeighings());
+    }
+
+    // a test that we can find several terrorists, even when they don't weigh the same
+    @Test
+    public void multipleTerroristsTest() {
+        int[] passengers = new int[100];
+        Arrays.fill(passengers, 10);
+        passengers[3] = 9;
+        passengers[4] = 1;
+        passengers[57] = 5;
+        passengers[99] = 9;
+        WeighingCount count = new WeighingCount();
+        assertArrayEquals(new int[]{3, 4, 57, 99}, DetectTerrorist.findAllTerrorists(passengers, 5, count));
+        // much less than weighing everyone individually
+        assertTrue(count.getWeighings() < 40, "took " + count.getWeighings() + " weighings");
+    }
+
+    // a test that the innocent weight is found even when the first passengers are all terrorists
+    @Test
+    public void terroristsUpFrontTest() {
+        assertArrayEquals(new int[]{0, 1}, DetectTerrorist.findAllTerrorists(new int[]{1, 1, 2, 2, 2}, 2, new WeighingCount()));
+        assertArrayEquals(new int[]{0}, DetectTerrorist.findAllTerrorists(new int[]{1, 2}, 1, new WeighingCount()));
+    }
+
+    // a test that a manifest without terrorists, or with fewer than the maximum, is fine
+    @Test
+    public void fewerTerroristsTest() {
+        assertArrayEquals(new int[0], DetectTerrorist.findAllTerrorists(new int[]{2, 2, 2, 2}, 3, new WeighingCount()));
+        assertArrayEquals(new int[]{2}, DetectTerrorist.findAllTerrorists(new int[]{2, 2, 1, 2}, 10, new WeighingCount()));
+        assertThrows(IllegalArgumentException.class, ()->DetectTerrorist.findAllTerrorists(new int[]{2, 1}, 0, new WeighingCount()));
+    }
 
 }
@@ -0,0 +1,91 @@
+package testing;
+
+import edu.yu.da.StreamingDetectTerrorist;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingDetectTerroristTest {
+    // DetectTerroristTest already runs every manifest through the streaming detector
+    // these are the things that only a feed can do
+
+    // a test that we stop as soon as the terrorist shows up, even if the feed never ends
+    @Test
+    public void unboundedFeedTest() {
+        IntStream conveyorBelt = IntStream.iterate(0, i -> i + 1).map(i -> i == 1_000 ? 59 : 60);
+        assertEquals(1_000, StreamingDetectTerrorist.findTerrorist(conveyorBelt));
+    }
+
+    // a test of feeding it one passenger at a time
+    @Test
+    public void acceptTest() {
+        StreamingDetectTerrorist detector = new StreamingDetectTerrorist();
+        assertFalse(detector.accept(5));
+        assertFalse(detector.accept(5));
+        assertEquals(-1, detector.getTerrorist());
+        assertTrue(detector.accept(4));
+        assertEquals(2, detector.getTerrorist());
+        // anyone after him doesn't matter
+        assertTrue(detector.accept(3));
+        assertEquals(2, detector.getTerrorist());
+    }
+
+    // a test that when the first two passengers differ, we catch the first one
+    @Test
+    public void firstPassengerTest() {
+        StreamingDetectTerrorist detector = new StreamingDetectTerrorist();
+        detector.accept(4);
+        assertTrue(detector.accept(5));
+        assertEquals(0, detector.getTerrorist());
+    }
+
+    // a test of reading the feed as little-endian bytes
+    @Test
+    public void inputStreamTest() throws IOException {
+        assertEquals(3, StreamingDetectTerrorist.findTerrorist(feedOf(70_000, 70_000, 70_000, -2, 70_000)));
+        assertEquals(0, StreamingDetectTerrorist.findTerrorist(feedOf(-70_000)));
+    }
+
+    // the rest of a live feed is still there for the client, so nothing past the terrorist can be read
+    @Test
+    public void stopsAtTerroristTest() throws IOException {
+        ByteArrayInputStream feed = feedOf(60, 60, 59, 60, 60, 60);
+        assertEquals(2, StreamingDetectTerrorist.findTerrorist(feed));
+        assertEquals(3 * Integer.BYTES, feed.available());
+    }
+
+    // a feed that cuts off in the middle of a weight is rejected
+    @Test
+    public void truncatedInputStreamTest() {
+        assertThrows(IllegalArgumentException.class,
+                ()->StreamingDetectTerrorist.findTerrorist(new ByteArrayInputStream(new byte[]{1, 0, 0, 0, 1, 0})));
+    }
+
+    // a feed that ends without a terrorist is rejected
+    @Test
+    public void noTerroristTest() {
+        assertThrows(IllegalArgumentException.class, ()->StreamingDetectTerrorist.findTerrorist(IntStream.of(2, 2, 2)));
+        assertThrows(IllegalArgumentException.class, ()->StreamingDetectTerrorist.findTerrorist(IntStream.empty()));
+    }
+
+    // a passenger heavier than the innocent ones means the feed is broken
+    @Test
+    public void heavierPassengerTest() {
+        assertThrows(IllegalArgumentException.class, ()->StreamingDetectTerrorist.findTerrorist(IntStream.of(2, 2, 3, 1)));
+    }
+
+    private ByteArrayInputStream feedOf(int... weights) {
+        ByteBuffer bytes = ByteBuffer.allocate(weights.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asIntBuffer().put(weights);
+        return new ByteArrayInputStream(bytes.array());
+    }
+}
@@ -0,0 +1,111 @@
+package edu.yu.da;
+
+/**
+ * An indexed binary min-heap of cities 1 to n, for FindMinyan's Dijkstra
+ * It does the same job as FindMinyan.PriorityQueue, but the cities are ints, and where each one is in the heap
+ * is kept in an array instead of a HashMap, so finding a city is O(1) with no hashing or boxing, and nothing is
+ * allocated after the constructor. Every operation but isEmpty() is O(lg n).
+ * Once it's been emptied, it can be used again for another run of Dijkstra.
+ */
+class CityHeap {
+
+    private final int[] heap; // heap[1] to heap[count] are the cities, heap[1] has the smallest key
+    private final int[] pos; // pos[city] is where the city is in heap, or 0 if it isn't in it
+    private final long[] key; // key[city] is what the city is ordered by, only meaningful while it's in the heap
+    private int count;
+
+    /**
+     * @param n the biggest city that will ever be in the heap
+     */
+    CityHeap(int n) {
+        heap = new int[n + 1];
+        pos = new int[n + 1];
+        key = new long[n + 1];
+    }
+
+    /**
+     * @return true if there are no cities in the heap
+     */
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Adds a city that isn't in the heap
+     * @param city to add
+     * @param cityKey to order it by
+     */
+    void insert(int city, long cityKey) {
+        key[city] = cityKey;
+        heap[++count] = city;
+        pos[city] = count;
+        upHeap(count);
+    }
+
+    /**
+     * Lowers the key of a city in the heap, or does nothing if the city isn't in it, like reHeapify()
+     * @param city whose key went down
+     * @param cityKey its new key, which can't be bigger than the old one
+     */
+    void decreaseKey(int city, long cityKey) {
+        if (pos[city] == 0) {
+            return;
+        }
+        key[city] = cityKey;
+        upHeap(pos[city]);
+    }
+
+    /**
+     * Takes the city with the smallest key out of the heap
+     * @return that city, which the heap can't be empty for
+     */
+    int removeMin() {
+        int min = heap[1];
+        int last = heap[count--];
+        pos[min] = 0;
+        if (count > 0) {
+            heap[1] = last;
+            pos[last] = 1;
+            downHeap(1);
+        }
+        return min;
+    }
+
+    /**
+     * Moves the city at heap[k] up until its parent's key isn't bigger
+     * Instead of swapping at every level, the parents are moved down, and the city is written once at the end
+     */
+    private void upHeap(int k) {
+        int city = heap[k];
+        long cityKey = key[city];
+        while (k > 1 && key[heap[k / 2]] > cityKey) {
+            heap[k] = heap[k / 2];
+            pos[heap[k]] = k;
+            k = k / 2;
+        }
+        heap[k] = city;
+        pos[city] = k;
+    }
+
+    /**
+     * Moves the city at heap[k] down until neither child's key is smaller, the same way as upHeap()
+     */
+    private void downHeap(int k) {
+        int city = heap[k];
+        long cityKey = key[city];
+        while (2 * k <= count) {
+            int child = 2 * k; // the smaller child
+            if (child < count && key[heap[child + 1]] < key[heap[child]]) {
+                child++;
+            }
+            if (key[heap[child]] >= cityKey) {
+                break;
+            }
+            heap[k] = heap[child];
+            pos[heap[k]] = k;
+            k = child;
+        }
+        heap[k] = city;
+        pos[city] = k;
+    }
+}
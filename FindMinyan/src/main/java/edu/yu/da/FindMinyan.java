@@ -1,6 +1,12 @@
 package edu.yu.da;
 
 
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
 /** Defines the API for specifying and solving the FindMinyan problem (see the
@@ -19,8 +25,37 @@ public class FindMinyan {
     Wait, first let's create the actual graph.
     * */
 
+    /**
+     * How solveIt() finds the trips
+     * PER_MINYAN runs Dijkstra from every reachable Minyan, and adds up the trips through it, skipping the ones
+     * through Minyanim it already did, which is O(M * hlgn) for M Minyanim
+     * TWO_PASS runs Dijkstra only from 1 and from n, counting the shortest paths to every city as it goes,
+     * and then goes through the Minyanim once to put them together, which is O(hlgn + n) however many there are
+     */
+    public enum Engine {
+        PER_MINYAN, TWO_PASS
+    }
+
     private final int n;
-    private final List<List<Highway>> graph; // using a list of lists to avoid generic problems from list of arrays
+    // each highway in an edge file is city1, duration, city2, as little-endian ints
+    private static final int HIGHWAY_BYTES = Integer.BYTES * 3;
+    // how much of an edge file is mapped at a time, a whole number of highways, since one mapping is at most 2GB
+    private static final long MAPPING_BYTES = HIGHWAY_BYTES * (1L << 26);
+    // the packed graph has every highway twice, and that has to fit in one array
+    private static final int MAX_HIGHWAYS = (Integer.MAX_VALUE - 8) / 2;
+    // the highways in the order they were added, which solveIt() packs into the arrays below
+    private int[] highwayCity1 = new int[16];
+    private int[] highwayCity2 = new int[16];
+    private int[] highwayDuration = new int[16];
+    private int highwayCount;
+    private final HighwaySet highwayPairs = new HighwaySet(); // so a duplicate highway is caught in O(1)
+    // The graph in compressed sparse row form, so Dijkstra goes through flat arrays instead of chasing objects:
+    // the roads out of city c are roadDestination and roadDuration from firstRoad[c] to firstRoad[c + 1] - 1,
+    // and each highway is in there twice, once from each end
+    // null until solveIt() packs it, and again whenever a highway is added after that
+    private int[] firstRoad;
+    private int[] roadDestination;
+    private int[] roadDuration;
     private final boolean[] cityMinyan;
     private int routeLength; // length of the most efficient route
     private int routeNumber; // number of most efficient routes
@@ -37,13 +72,6 @@ public class FindMinyan {
         }
         n = nCities; // I am keeping this, because it is one less than the actual data structures, and I don't
             // want to have to subtract
-        // initialize empty graph
-        graph = new ArrayList<>(nCities + 1); // so that I can use their numbering
-        graph.add(null); // so that we can skip index 0, which goes unused
-        for (int i = 1; i <= nCities; i++) {
-            graph.add(new ArrayList<>());
-        }
-
         cityMinyan = new boolean[nCities + 1];
     }
 
@@ -56,15 +84,160 @@ public class FindMinyan {
      * cities on this highway, must be non-negative
      */
     public void addHighway(final int city1, final int duration, final int city2) {
+        // before cleanHighway(), which records the highway as taken
+        if (highwayCount == MAX_HIGHWAYS) {
+            throw new IllegalArgumentException("There can't be more than " + MAX_HIGHWAYS + " highways");
+        }
         cleanHighway(city1, duration, city2);
 
-        // we add the valid highway to the graph, for both cities
-        Highway road = new Highway(city1, duration, city2);
-        graph.get(city1).add(road);
-        graph.get(city2).add(road);
+        // we add the valid highway to the list, which gets packed into the graph when it's solved
+        if (highwayCount == highwayCity1.length) {
+            growHighways((int) Math.min(highwayCount * 2L, MAX_HIGHWAYS));
+        }
+        highwayCity1[highwayCount] = city1;
+        highwayCity2[highwayCount] = city2;
+        highwayDuration[highwayCount] = duration;
+        highwayCount++;
+        firstRoad = null; // the packed graph doesn't have this highway
+    }
+
+    /** Defines every highway in a binary edge file, as if addHighway() were called on each one in order, but
+     * without the per-call overhead, for graphs with millions of highways
+     * The file is just the highways one after the other, each one three little-endian ints: city1, duration, city2
+     * Either every highway in the file is added, or, if any of them is one addHighway() would reject, none are
+     *
+     * @param edgeFile the file of highways
+     * @throws IOException if the file can't be read
+     */
+    public void addHighways(final Path edgeFile) throws IOException {
+        if (edgeFile == null) {
+            throw new IllegalArgumentException("edgeFile is null");
+        }
+        try (FileChannel channel = FileChannel.open(edgeFile, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes % HIGHWAY_BYTES != 0) {
+                throw new IllegalArgumentException(edgeFile + " has " + bytes + " bytes, which isn't a whole "
+                        + "number of " + HIGHWAY_BYTES + "-byte highways");
+            }
+            if (highwayCount + bytes / HIGHWAY_BYTES > MAX_HIGHWAYS) {
+                throw new IllegalArgumentException("There can't be more than " + MAX_HIGHWAYS + " highways");
+            }
+            int total = highwayCount + (int) (bytes / HIGHWAY_BYTES);
+            if (total > highwayCity1.length) {
+                growHighways(total);
+            }
+            // the new highways are copied in past the end of the list, so they aren't in it until they're all good
+            int next = highwayCount;
+            for (long start = 0; start < bytes; start += MAPPING_BYTES) {
+                long length = Math.min(MAPPING_BYTES, bytes - start);
+                IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, start, length)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                for (int i = 0; i < ints.limit(); i += 3) {
+                    highwayCity1[next] = ints.get(i);
+                    highwayDuration[next] = ints.get(i + 1);
+                    highwayCity2[next] = ints.get(i + 2);
+                    next++;
+                }
+            }
+            checkHighways(edgeFile, highwayCount, total);
+            highwayCount = total;
+            firstRoad = null; // the packed graph doesn't have these highways
+        }
+    }
+
+    /**
+     * Checks the highways from first to end - 1 in the arrays the way cleanHighway() would, and records their
+     * pairs as taken, or throws without recording any of them
+     * @param edgeFile they came from, for the messages
+     * @param first the first highway to check
+     * @param end one past the last highway to check
+     */
+    private void checkHighways(final Path edgeFile, final int first, final int end) {
+        // the cities and durations are checked all at once, with no branches, so that the JIT can vectorize it:
+        // each of these is negative if the highway is bad, so if no sign bit ends up set, they're all good
+        int signs = 0;
+        for (int i = first; i < end; i++) {
+            int city1 = highwayCity1[i];
+            int city2 = highwayCity2[i];
+            signs |= (city1 - 1) | (n - city1) | (city2 - 1) | (n - city2) | ((city1 ^ city2) - 1)
+                    | highwayDuration[i];
+        }
+        if (signs < 0) {
+            // only now is it worth finding which one it was, so the message says what's wrong with it
+            for (int i = first; i < end; i++) {
+                try {
+                    cleanHighwayEnds(highwayCity1[i], highwayDuration[i], highwayCity2[i]);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Highway " + (i - first) + " in " + edgeFile + ": "
+                            + e.getMessage(), e);
+                }
+            }
+        }
+        // duplicates need the set, so they're checked one at a time
+        for (int i = first; i < end; i++) {
+            if (!highwayPairs.add(HighwaySet.pack(highwayCity1[i], highwayCity2[i]))) {
+                // take the file's highways back out, so it's like none of them were added
+                for (int j = first; j < i; j++) {
+                    highwayPairs.remove(HighwaySet.pack(highwayCity1[j], highwayCity2[j]));
+                }
+                throw new IllegalArgumentException("Highway " + (i - first) + " in " + edgeFile
+                        + ": A highway between these cities already exists");
+            }
+        }
+    }
+
+    /**
+     * Makes room for more highways in the list
+     * @param capacity how many highways it has to fit
+     */
+    private void growHighways(final int capacity) {
+        highwayCity1 = Arrays.copyOf(highwayCity1, capacity);
+        highwayCity2 = Arrays.copyOf(highwayCity2, capacity);
+        highwayDuration = Arrays.copyOf(highwayDuration, capacity);
+    }
+
+    /**
+     * Packs the highways into the compressed sparse row arrays, in O(n + h)
+     * Each city's roads stay in the order their highways were added
+     */
+    private void packGraph() {
+        // first count the roads out of each city, one index late, so that adding them up gives where each one starts
+        int[] first = new int[n + 2];
+        for (int i = 0; i < highwayCount; i++) {
+            first[highwayCity1[i] + 1]++;
+            first[highwayCity2[i] + 1]++;
+        }
+        for (int city = 1; city <= n + 1; city++) {
+            first[city] += first[city - 1];
+        }
+        int[] nextRoad = Arrays.copyOf(first, n + 1);
+        int[] destinations = new int[highwayCount * 2];
+        int[] durations = new int[highwayCount * 2];
+        for (int i = 0; i < highwayCount; i++) {
+            int road = nextRoad[highwayCity1[i]]++;
+            destinations[road] = highwayCity2[i];
+            durations[road] = highwayDuration[i];
+            road = nextRoad[highwayCity2[i]]++;
+            destinations[road] = highwayCity1[i];
+            durations[road] = highwayDuration[i];
+        }
+        roadDestination = destinations;
+        roadDuration = durations;
+        firstRoad = first;
     }
 
     private void cleanHighway(final int city1, final int duration, final int city2) {
+        cleanHighwayEnds(city1, duration, city2);
+        // the pair is only recorded once the highway is known to be good, since this is the last check
+        if (!highwayPairs.add(HighwaySet.pack(city1, city2))) {
+            throw new IllegalArgumentException("A highway between these cities already exists");
+        }
+    }
+
+    /**
+     * Everything cleanHighway() checks except whether the highway already exists
+     */
+    private void cleanHighwayEnds(final int city1, final int duration, final int city2) {
         cleanCity(city1);
         cleanCity(city2);
         if (city1 == city2) {
@@ -73,13 +246,10 @@ public class FindMinyan {
         if (duration < 0) {
             throw new IllegalArgumentException("Highway duration cannot be negative, you gave " + duration);
         }
-        if (graph.get(city1).contains(new Highway(city1, duration, city2))) {
-            throw new IllegalArgumentException("A highway between these cities already exists");
-        }
     }
 
     /**
-     * Represents the edges of the graph
+     * Represents the edges of the shortest path trees that PER_MINYAN builds
      * Each one contains two endpoints and a weight
      */
     private static class Highway {
@@ -143,6 +313,33 @@ public class FindMinyan {
      * solution through the shortestDuration() and nShortestDurationTrips() APIs.
      */
     public void solveIt() {
+        solveIt(Engine.TWO_PASS);
+    }
+
+    /** Solves the FindMinyan problem like solveIt(), but lets the client choose how
+     *
+     * @param engine used to find the trips, which doesn't change the answer
+     */
+    public void solveIt(final Engine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine is null");
+        }
+        routeLength = 0;
+        routeNumber = 0;
+        if (firstRoad == null) {
+            packGraph();
+        }
+        if (engine == Engine.TWO_PASS) {
+            solveInTwoPasses();
+        } else {
+            solveFromEachMinyan();
+        }
+    }
+
+    /**
+     * The original solveIt(), which runs Dijkstra from every Minyan that can be reached
+     */
+    private void solveFromEachMinyan() {
         // First check which Minyanim are reachable from 1 and n
         // if this leaves an empty set, I will set 0 return values for the other methods
         // which means doing nothing, because a 0 return value is the default
@@ -178,6 +375,98 @@ public class FindMinyan {
         // Or, checking if the first or last city have Minyanim, and if so, just getting the most efficient paths
     }
 
+    /**
+     * Every shortest trip through a Minyan is a shortest path from 1 to the first Minyan on it, followed by a
+     * shortest path from that Minyan to n. So I count, for each city, the shortest paths from 1 that don't pass
+     * through a Minyan before they get there, and all the shortest paths from n. Then every Minyan m whose distances
+     * add up to the shortest trip has (clean paths from 1 to m) * (paths from m to n) trips whose first Minyan is m,
+     * and since every trip has exactly one first Minyan, none of them are counted twice.
+     */
+    private void solveInTwoPasses() {
+        CityHeap queue = new CityHeap(n); // empty again after each pass, so both can use it
+        int[] distanceFrom1 = new int[n + 1];
+        int[] minyanFreePathsFrom1 = new int[n + 1];
+        shortestPaths(1, queue, distanceFrom1, null, minyanFreePathsFrom1);
+        if (distanceFrom1[n] == Integer.MAX_VALUE) {
+            return; // no way to get to n at all
+        }
+        int[] distanceFromN = new int[n + 1];
+        int[] pathsFromN = new int[n + 1];
+        shortestPaths(n, queue, distanceFromN, pathsFromN, null);
+
+        int shortest = Integer.MAX_VALUE;
+        int trips = 0;
+        for (int city = 1; city <= n; city++) {
+            if (!cityMinyan[city] || distanceFrom1[city] == Integer.MAX_VALUE) {
+                continue;
+            }
+            // since n can be reached from 1, anything reachable from 1 can reach n
+            int length = distanceFrom1[city] + distanceFromN[city];
+            if (length < shortest) {
+                shortest = length;
+                trips = 0;
+            }
+            if (length == shortest) {
+                trips += minyanFreePathsFrom1[city] * pathsFromN[city];
+            }
+        }
+        if (shortest != Integer.MAX_VALUE) {
+            routeLength = shortest;
+            routeNumber = trips;
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm from one city, counting the shortest paths to every city as it goes
+     * A path is counted when the city it comes from is settled, and only if the city it goes to isn't settled yet,
+     * so that a length 0 highway is only ever used in one direction, and the counts can't go around in circles
+     * @param source the city to start from
+     * @param queue an empty heap, which is empty again when this returns
+     * @param distance filled in with the length of the shortest path to each city, MAX_VALUE if it can't be reached
+     * @param paths filled in with the number of shortest paths to each city, or null if they aren't needed
+     * @param minyanFreePaths filled in with the number of shortest paths to each city that don't go through a
+     *                        Minyan before they get there, or null if they aren't needed
+     */
+    private void shortestPaths(int source, CityHeap queue, int[] distance, int[] paths, int[] minyanFreePaths) {
+        // no City objects here, the distances are the array, and the heap only holds city numbers
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        int[] pathCounts = paths != null? paths : new int[n + 1];
+        int[] freeCounts = minyanFreePaths != null? minyanFreePaths : new int[n + 1];
+        boolean[] settled = new boolean[n + 1];
+        distance[source] = 0;
+        pathCounts[source] = 1;
+        freeCounts[source] = 1;
+        queue.insert(source, 0);
+
+        while (!queue.isEmpty()) {
+            int city = queue.removeMin();
+            settled[city] = true;
+            // paths that go through a Minyan here aren't Minyan-free anywhere after it
+            int freeCount = cityMinyan[city]? 0 : freeCounts[city];
+            for (int road = firstRoad[city]; road < firstRoad[city + 1]; road++) {
+                int destination = roadDestination[road];
+                if (settled[destination]) {
+                    continue;
+                }
+                int newWeight = distance[city] + roadDuration[road];
+                if (newWeight < distance[destination]) {
+                    boolean inQueue = distance[destination] != Integer.MAX_VALUE;
+                    distance[destination] = newWeight;
+                    pathCounts[destination] = pathCounts[city];
+                    freeCounts[destination] = freeCount;
+                    if (inQueue) {
+                        queue.decreaseKey(destination, newWeight);
+                    } else {
+                        queue.insert(destination, newWeight);
+                    }
+                } else if (newWeight == distance[destination]) {
+                    pathCounts[destination] += pathCounts[city];
+                    freeCounts[destination] += freeCount;
+                }
+            }
+        }
+    }
+
     /**
      * This method takes the list of Minyanim and figures out which ones can be reached from
      * both 1 and n, in O(n + h) time
@@ -209,8 +498,8 @@ public class FindMinyan {
     private boolean findReachableRecursive(boolean[] marked, Set<Integer> minyanim, int currentNode) {
         boolean foundN = false;
         marked[currentNode] = true;
-        for (Highway edge : graph.get(currentNode)) {
-            int destination = edge.otherCity(currentNode);
+        for (int road = firstRoad[currentNode]; road < firstRoad[currentNode + 1]; road++) {
+            int destination = roadDestination[road];
             if (!marked[destination]) {
                 // if this city has not yet been visited, do so now
                 if (cityMinyan[destination]) {
@@ -227,7 +516,7 @@ public class FindMinyan {
 
 
 
-    private static class City implements Comparable<City> {
+    private static class City {
 
         private final int cityID;
         private int weight;
@@ -237,11 +526,6 @@ public class FindMinyan {
             this.cityID = cityID;
             weight = Integer.MAX_VALUE;
         }
-
-        @Override
-        public int compareTo(City o) {
-            return this.weight - o.weight;
-        }
     }
 
     /**
@@ -255,7 +539,7 @@ public class FindMinyan {
     private City[] getShortestPathsWithMinyan(final int minyan) {
 
         City[] distTo = new City[n + 1];
-        PriorityQueue<City> queue = new PriorityQueue<>();
+        CityHeap queue = new CityHeap(n);
 
         for (int i = 1; i <= n; i++) {
             City city = new City(i);
@@ -265,11 +549,11 @@ public class FindMinyan {
 
         // now we make the starting city with a zero distance
         distTo[minyan].weight = 0;
-        queue.insert(distTo[minyan]);
+        queue.insert(minyan, 0);
 
         while (!queue.isEmpty()) {
             // we relax each vertex, starting from the current one
-            City city = queue.remove();
+            City city = distTo[queue.removeMin()];
             relax(distTo, queue, city);
 
         }
@@ -285,29 +569,31 @@ public class FindMinyan {
      * @param queue of cites, may need to be updated as more efficient routes to cities are found
      * @param city whose edges we are looking at
      */
-    private void relax(City[] distTo, PriorityQueue<City> queue, City city) {
+    private void relax(City[] distTo, CityHeap queue, City city) {
         // for each edge next to the city
-        for (Highway road : graph.get(city.cityID)) {
-            int destination = road.otherCity(city.cityID);
+        for (int roadIndex = firstRoad[city.cityID]; roadIndex < firstRoad[city.cityID + 1]; roadIndex++) {
+            int destination = roadDestination[roadIndex];
             // destination is the other city
-            if (distTo[destination].weight > city.weight + road.duration) {
+            int duration = roadDuration[roadIndex];
+            if (distTo[destination].weight > city.weight + duration) {
                 int originalDistance = distTo[destination].weight;
                 // so I can use it later to determine if this was ever set
                 // by definition, the length can't approach Max distance, because that could lead to problems
                 // with an int return type
-                distTo[destination].weight = city.weight + road.duration;
+                distTo[destination].weight = city.weight + duration;
                 // now we add the road that goes to the city to the city's distTo
                 // resetting it if necessary, if there is a tie among roads to reach it
+                // the tree still needs Highway objects, but only for the roads that go in it, which is here
                 distTo[destination].edgesTo = new HashSet<>();
-                distTo[destination].edgesTo.add(road);
+                distTo[destination].edgesTo.add(new Highway(city.cityID, duration, destination));
                 // reheapify it, to reflect the new changes
                 // or add it if it hadn't been yet
                 if (originalDistance == Integer.MAX_VALUE) {
-                    queue.insert(distTo[destination]);
+                    queue.insert(destination, distTo[destination].weight);
                 } else {
-                    queue.reHeapify(distTo[destination]);
+                    queue.decreaseKey(destination, distTo[destination].weight);
                 }
-            } else if (distTo[destination].weight == city.weight + road.duration
+            } else if (distTo[destination].weight == city.weight + duration
                     && (distTo[city.cityID].edgesTo == null ||
                             !distTo[city.cityID].edgesTo.contains(new Highway(city.cityID, 0, destination)))) {
                 // in the case where this is a second, equal road that goes here, we add it to the edge
@@ -318,7 +604,7 @@ public class FindMinyan {
                     // where we could have an equal length road, but not have it instantiated yet
                     distTo[destination].edgesTo = new HashSet<>();
                 }
-                distTo[destination].edgesTo.add(road);
+                distTo[destination].edgesTo.add(new Highway(city.cityID, duration, destination));
                 // no need to reheapify, its place in the heap hasn't changed
             }
         }
@@ -410,6 +696,7 @@ public class FindMinyan {
     /**
      * An indexed priority queue made in Data Structures, and then modified to have proper efficiency
      * It should have O(lgn) order of growth for insert, remove, and reHeapify
+     * Dijkstra doesn't use it anymore, since CityHeap does the same thing for int cities without the HashMap
      * @param <E> type of elements
      */
     public static class PriorityQueue<E extends Comparable<E>> {
@@ -504,8 +791,9 @@ public class FindMinyan {
             E temp = this.elements[i];
             this.elements[i] = this.elements[j];
             this.elements[j] = temp;
-            indexMap.put(elements[i], j);
-            indexMap.put(elements[j], i);
+            // each element is now at the other's old index
+            indexMap.put(elements[i], i);
+            indexMap.put(elements[j], j);
         }
 
         /**
@@ -0,0 +1,126 @@
+package edu.yu.da;
+
+/**
+ * A hash set of highways, each one packed into a long as (smaller city << 32) | bigger city, so that
+ * FindMinyan.addHighway() can catch a duplicate in O(1) without boxing a Long or allocating a Highway
+ * It uses open addressing with linear probing, so the whole set is one long[], and a lookup usually touches
+ * one cache line
+ * Since cities start at 1, no highway packs to 0, so 0 marks an empty slot
+ */
+class HighwaySet {
+
+    private static final int INITIAL_CAPACITY = 16; // has to be a power of 2, so a slot is found with a mask
+    private static final int MAX_CAPACITY = 1 << 30; // the biggest power of 2 that a long[] can be
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @param city1 one end of the highway
+     * @param city2 the other end, which can be bigger or smaller than city1
+     * @return the highway packed into a long, the same whichever way around the cities are
+     */
+    static long pack(int city1, int city2) {
+        return (long) Math.min(city1, city2) << 32 | Math.max(city1, city2);
+    }
+
+    /**
+     * Adds a highway, if it isn't there already
+     * @param highway packed by pack(), which can't be 0
+     * @return true if it wasn't in the set before, false if it was
+     */
+    boolean add(long highway) {
+        // kept at most half full, so the probes stay short
+        // but the table can't double past MAX_CAPACITY, so from there it fills up the rest of the way, with longer
+        // probes, which still leaves room for every highway FindMinyan allows
+        if (2L * size >= slots.length) {
+            if (slots.length < MAX_CAPACITY) {
+                grow();
+            } else if (size == MAX_CAPACITY - 1) {
+                // a lookup needs at least one empty slot to stop at
+                throw new IllegalArgumentException("There can't be more than " + (MAX_CAPACITY - 1) + " highways");
+            }
+        }
+        int mask = slots.length - 1;
+        for (int slot = hash(highway) & mask; ; slot = (slot + 1) & mask) {
+            if (slots[slot] == highway) {
+                return false;
+            }
+            if (slots[slot] == 0) {
+                slots[slot] = highway;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param highway packed by pack()
+     * @return true if it is in the set
+     */
+    boolean contains(long highway) {
+        int mask = slots.length - 1;
+        for (int slot = hash(highway) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (slots[slot] == highway) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes a highway out of the set, if it is there
+     * Since a lookup stops at the first empty slot, the highways after it in the same run are shifted back
+     * into the hole when they can be, instead of leaving a marker behind
+     * @param highway packed by pack()
+     */
+    void remove(long highway) {
+        int mask = slots.length - 1;
+        int hole = hash(highway) & mask;
+        while (slots[hole] != highway) {
+            if (slots[hole] == 0) {
+                return; // it was never there
+            }
+            hole = (hole + 1) & mask;
+        }
+        slots[hole] = 0;
+        size--;
+        for (int slot = (hole + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int home = hash(slots[slot]) & mask;
+            // it can move into the hole only if its home isn't between the hole and where it is now
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = slots[slot];
+                slots[slot] = 0;
+                hole = slot;
+            }
+        }
+    }
+
+    /**
+     * Doubles the table, putting every highway back in its new slot
+     */
+    private void grow() {
+        long[] oldSlots = slots;
+        slots = new long[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (long highway : oldSlots) {
+            if (highway != 0) {
+                int slot = hash(highway) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = highway;
+            }
+        }
+    }
+
+    /**
+     * The murmur finalizer, since the cities of a hub's highways only differ in their low bits,
+     * and linear probing needs those spread over the whole table
+     */
+    private static int hash(long highway) {
+        highway ^= highway >>> 33;
+        highway *= 0xFF51AFD7ED558CCDL;
+        highway ^= highway >>> 33;
+        return (int) highway;
+    }
+}
@@ -0,0 +1,102 @@
+package edu.yu.da;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// in edu.yu.da, not testing, since CityHeap is package-private
+public class CityHeapTest {
+
+    @Test
+    public void insertRemoveTest() {
+        CityHeap heap = new CityHeap(5);
+        assertTrue(heap.isEmpty());
+        heap.insert(3, 30);
+        heap.insert(1, 50);
+        heap.insert(5, 10);
+        heap.insert(2, 40);
+        heap.insert(4, 20);
+        assertFalse(heap.isEmpty());
+        for (int city : new int[]{5, 4, 3, 2, 1}) {
+            assertEquals(city, heap.removeMin());
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    // a decreased key has to move up past the cities it is now smaller than
+    @Test
+    public void decreaseKeyTest() {
+        CityHeap heap = new CityHeap(4);
+        heap.insert(1, 10);
+        heap.insert(2, 20);
+        heap.insert(3, 30);
+        heap.insert(4, 40);
+        heap.decreaseKey(4, 5);
+        heap.decreaseKey(3, 15);
+        assertEquals(4, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+        assertEquals(3, heap.removeMin());
+        assertEquals(2, heap.removeMin());
+    }
+
+    // like reHeapify(), a city that isn't in the heap is left alone
+    @Test
+    public void decreaseKeyNotInHeapTest() {
+        CityHeap heap = new CityHeap(3);
+        heap.insert(1, 10);
+        heap.insert(2, 20);
+        assertEquals(1, heap.removeMin());
+        heap.decreaseKey(1, 0);
+        heap.decreaseKey(3, 0);
+        assertEquals(2, heap.removeMin());
+        assertTrue(heap.isEmpty());
+    }
+
+    // keys that don't fit in an int still have to come out in order
+    @Test
+    public void longKeyTest() {
+        CityHeap heap = new CityHeap(3);
+        heap.insert(1, Long.MAX_VALUE);
+        heap.insert(2, (long) Integer.MAX_VALUE + 1);
+        heap.insert(3, Integer.MIN_VALUE - 1L);
+        assertEquals(3, heap.removeMin());
+        assertEquals(2, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+    }
+
+    // Dijkstra uses the same heap for both passes, so once it's empty it has to work like a new one
+    // random inserts and decreases, checked against sorting the final keys
+    @Test
+    public void reuseAfterEmptyTest() {
+        Random pablo = new Random(1776);
+        int n = 500;
+        CityHeap heap = new CityHeap(n);
+        for (int round = 0; round < 5; round++) {
+            long[] keys = new long[n + 1];
+            for (int city = 1; city <= n; city++) {
+                keys[city] = pablo.nextInt(1_000_000);
+                heap.insert(city, keys[city]);
+            }
+            for (int i = 0; i < n; i++) {
+                int city = pablo.nextInt(n) + 1;
+                keys[city] -= pablo.nextInt(1_000);
+                heap.decreaseKey(city, keys[city]);
+            }
+            long[] expected = Arrays.copyOfRange(keys, 1, n + 1);
+            Arrays.sort(expected);
+            boolean[] removed = new boolean[n + 1];
+            for (int i = 0; i < n; i++) {
+                int city = heap.removeMin();
+                assertFalse(removed[city]);
+                removed[city] = true;
+                assertEquals(expected[i], keys[city]);
+            }
+            assertTrue(heap.isEmpty());
+        }
+    }
+}
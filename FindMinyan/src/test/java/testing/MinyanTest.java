@@ -2,6 +2,15 @@ package testing;
 
 import edu.yu.da.FindMinyan;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -400,6 +409,154 @@ public class MinyanTest {
         assertEquals(0, googleMaps.numberOfShortestTrips());
     }
 
+    // both engines should find the same trips on random road networks, with lots of Minyanim
+    @Test
+    public void enginesMatchTest() {
+        Random pablo = new Random(1492);
+        for (int trial = 0; trial < 500; trial++) {
+            int n = pablo.nextInt(30) + 2;
+            FindMinyan perMinyan = new FindMinyan(n);
+            FindMinyan twoPass = new FindMinyan(n);
+            for (int city1 = 1; city1 <= n; city1++) {
+                for (int city2 = city1 + 1; city2 <= n; city2++) {
+                    if (pablo.nextInt(4) == 0) {
+                        int duration = pablo.nextInt(5) + 1;
+                        perMinyan.addHighway(city1, duration, city2);
+                        twoPass.addHighway(city1, duration, city2);
+                    }
+                }
+                if (pablo.nextInt(3) == 0) {
+                    perMinyan.hasMinyan(city1);
+                    twoPass.hasMinyan(city1);
+                }
+            }
+            perMinyan.solveIt(FindMinyan.Engine.PER_MINYAN);
+            twoPass.solveIt(FindMinyan.Engine.TWO_PASS);
+            assertEquals(perMinyan.shortestDuration(), twoPass.shortestDuration());
+            assertEquals(perMinyan.numberOfShortestTrips(), twoPass.numberOfShortestTrips());
+        }
+    }
+
+    // a trip that goes through two Minyanim should only be counted once
+    @Test
+    public void twoMinyanimOneTripTest() {
+        googleMaps.addHighway(1, 1, 2);
+        googleMaps.addHighway(2, 1, 3);
+        googleMaps.addHighway(3, 1, 10);
+        googleMaps.addHighway(1, 3, 10);
+        googleMaps.hasMinyan(2);
+        googleMaps.hasMinyan(3);
+
+        googleMaps.solveIt(FindMinyan.Engine.TWO_PASS);
+        assertEquals(3, googleMaps.shortestDuration());
+        assertEquals(1, googleMaps.numberOfShortestTrips());
+        googleMaps.solveIt(FindMinyan.Engine.PER_MINYAN);
+        assertEquals(3, googleMaps.shortestDuration());
+        assertEquals(1, googleMaps.numberOfShortestTrips());
+    }
+
+    // a highway added after solveIt() has to make it into the graph the next time it's solved
+    @Test
+    public void highwayAfterSolveTest() {
+        googleMaps.addHighway(1, 5, 10);
+        googleMaps.hasMinyan(1);
+        googleMaps.solveIt();
+        assertEquals(5, googleMaps.shortestDuration());
+        assertEquals(1, googleMaps.numberOfShortestTrips());
+
+        googleMaps.addHighway(1, 2, 4);
+        googleMaps.addHighway(4, 3, 10);
+        googleMaps.solveIt();
+        assertEquals(5, googleMaps.shortestDuration());
+        assertEquals(2, googleMaps.numberOfShortestTrips());
+    }
+
+    // a hub with a highway to every other city, which used to be quadratic to load
+    // every duplicate still has to be caught, however full the set has gotten
+    @Test
+    public void hubDuplicatesTest() {
+        int cities = 200_000;
+        FindMinyan hubMap = new FindMinyan(cities);
+        for (int city = 2; city <= cities; city++) {
+            hubMap.addHighway(1, city, city);
+        }
+        for (int city = 2; city <= cities; city += 997) {
+            final int spoke = city;
+            assertThrows(IllegalArgumentException.class, ()->hubMap.addHighway(spoke, 1, 1));
+        }
+        hubMap.hasMinyan(1);
+        hubMap.solveIt();
+        assertEquals(cities, hubMap.shortestDuration());
+        assertEquals(1, hubMap.numberOfShortestTrips());
+    }
+
+    // loading highways from a file should give the same answer as adding them one at a time
+    @Test
+    public void bulkLoadTest(@TempDir Path directory) throws IOException {
+        Random pablo = new Random(1791);
+        for (int trial = 0; trial < 50; trial++) {
+            int cities = pablo.nextInt(30) + 2;
+            FindMinyan oneAtATime = new FindMinyan(cities);
+            FindMinyan fromFile = new FindMinyan(cities);
+            ByteBuffer edges = ByteBuffer.allocate(cities * cities * 12).order(ByteOrder.LITTLE_ENDIAN);
+            for (int city1 = 1; city1 <= cities; city1++) {
+                for (int city2 = city1 + 1; city2 <= cities; city2++) {
+                    if (pablo.nextInt(4) == 0) {
+                        int duration = pablo.nextInt(10) + 1;
+                        oneAtATime.addHighway(city1, duration, city2);
+                        edges.putInt(city1).putInt(duration).putInt(city2);
+                    }
+                }
+            }
+            for (int city = 1; city <= cities; city++) {
+                if (pablo.nextInt(5) == 0) {
+                    oneAtATime.hasMinyan(city);
+                    fromFile.hasMinyan(city);
+                }
+            }
+            fromFile.addHighways(writeEdges(directory, edges));
+            oneAtATime.solveIt();
+            fromFile.solveIt();
+            assertEquals(oneAtATime.shortestDuration(), fromFile.shortestDuration());
+            assertEquals(oneAtATime.numberOfShortestTrips(), fromFile.numberOfShortestTrips());
+        }
+    }
+
+    // a file with one bad highway, or a duplicate of one already there, adds none of its highways
+    @Test
+    public void badBulkLoadTest(@TempDir Path directory) throws IOException {
+        googleMaps.addHighway(1, 2, 10);
+        ByteBuffer outOfBounds = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+        outOfBounds.putInt(1).putInt(1).putInt(5).putInt(5).putInt(1).putInt(11);
+        assertThrows(IllegalArgumentException.class, ()->googleMaps.addHighways(writeEdges(directory, outOfBounds)));
+        ByteBuffer duplicate = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+        duplicate.putInt(1).putInt(1).putInt(5).putInt(10).putInt(7).putInt(1);
+        assertThrows(IllegalArgumentException.class, ()->googleMaps.addHighways(writeEdges(directory, duplicate)));
+        ByteBuffer partial = ByteBuffer.allocate(10).order(ByteOrder.LITTLE_ENDIAN);
+        partial.putInt(1).putInt(1).putShort((short) 5); // the last city got cut off
+        assertThrows(IllegalArgumentException.class, ()->googleMaps.addHighways(writeEdges(directory, partial)));
+
+        // so 1 to 5 can still be added, and the shortest trip is the one from before
+        googleMaps.addHighway(1, 1, 5);
+        googleMaps.hasMinyan(10);
+        googleMaps.solveIt();
+        assertEquals(2, googleMaps.shortestDuration());
+        assertEquals(1, googleMaps.numberOfShortestTrips());
+    }
+
+    private Path writeEdges(Path directory, ByteBuffer edges) throws IOException {
+        Path edgeFile = Files.createTempFile(directory, "highways", ".bin");
+        Files.write(edgeFile, Arrays.copyOf(edges.array(), edges.position()));
+        return edgeFile;
+    }
+
+    // throw an IAE if the same highway is added backwards
+    @Test
+    public void reversedDuplicateHighwayTest() {
+        googleMaps.addHighway(1, 2, 10);
+        assertThrows(IllegalArgumentException.class, ()->googleMaps.addHighway(10, 2, 1));
+    }
+
     // throw an IAE if we have the same highway added twice
     @Test
     public void duplicateHighwayTest() {
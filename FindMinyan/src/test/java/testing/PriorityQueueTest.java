@@ -293,6 +293,24 @@ public class PriorityQueueTest {
         assertEquals(4, testHeap.remove());
     }
 
+    // Test that the queue still knows where everything is after insert and remove have moved things around,
+    // since reHeapify can only fix an element if it looks in the right place
+    @Test
+    public void reHeapifyAfterSwapsTest() {
+        PriorityQueue<TestClass> testHeap = new PriorityQueue<>();
+        TestClass[] things = {new TestClass(3), new TestClass(1), new TestClass(3), new TestClass(3),
+                new TestClass(1), new TestClass(4)};
+        for (int i = 0; i < 5; i++) {
+            testHeap.insert(things[i]);
+        }
+        assertEquals(1, testHeap.remove().id);
+        testHeap.insert(things[5]);
+        assertEquals(1, testHeap.remove().id);
+        things[5].id = 2;
+        testHeap.reHeapify(things[5]);
+        assertEquals(things[5], testHeap.remove());
+    }
+
     private static class TestClass implements Comparable<TestClass>{
         private int id;
 